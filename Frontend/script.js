@@ -8,6 +8,7 @@ const deviceLocationInput = document.getElementById('deviceLocation');
 const addDeviceBtn = document.getElementById('addDeviceBtn');
 const devicesTableBody = document.getElementById('devicesTableBody');
 const deviceMessageDiv = document.getElementById('deviceMessage');
+const loadMoreDevicesBtn = document.getElementById('loadMoreDevicesBtn');
 
 const loanDeviceSelect = document.getElementById('loanDeviceSelect');
 const loanBorrowedByInput = document.getElementById('loanBorrowedBy');
@@ -15,52 +16,126 @@ const addLoanBtn = document.getElementById('addLoanBtn');
 const loansTableBody = document.getElementById('loansTableBody');
 const loanMessageDiv = document.getElementById('loanMessage');
 
+const PAGE_SIZE = 50;
+const NEW_DEVICES_DELAY_MS = 500;
+
+// Loaded devices by id, with their table row and the version of the last event applied to them
+const loadedDevices = new Map();
+let lastLoadedId = null;
+// Cursor of the first page not loaded yet, or null once the table reaches the last device
+let nextCursor = null;
+let newDevicesTimer = null;
+
 // Device Functions
+async function fetchDevicesPage(after) {
+    const query = after === null ? `limit=${PAGE_SIZE}` : `after=${after}&limit=${PAGE_SIZE}`;
+    const res = await fetch(`${API_BASE}/devices?${query}`);
+    if (!res.ok) throw new Error('Failed to fetch devices');
+    return res.json();
+}
+
 async function fetchDevices() {
     deviceMessageDiv.textContent = '';
     deviceMessageDiv.className = '';
     try {
-        const res = await fetch(`${API_BASE}/devices`);
-        if (!res.ok) throw new Error('Failed to fetch devices');
-        const devices = await res.json();
-        renderDevices(devices);
-        populateDeviceSelect(devices);
+        const page = await fetchDevicesPage(null);
+        devicesTableBody.innerHTML = '';
+        loanDeviceSelect.innerHTML = '';
+        loadedDevices.clear();
+        lastLoadedId = null;
+        appendDevices(page);
+    } catch (err) {
+        deviceMessageDiv.textContent = err.message;
+        deviceMessageDiv.className = 'error';
+    }
+}
+
+async function loadMoreDevices() {
+    if (nextCursor === null) return;
+    try {
+        appendDevices(await fetchDevicesPage(nextCursor));
     } catch (err) {
         deviceMessageDiv.textContent = err.message;
         deviceMessageDiv.className = 'error';
     }
 }
 
-function renderDevices(devices) {
-    devicesTableBody.innerHTML = '';
-    for (const device of devices) {
+function appendDevices(page) {
+    for (const device of page.items) {
+        if (loadedDevices.has(device.id)) continue;
         const tr = document.createElement('tr');
         tr.innerHTML = `
             <td>${device.id}</td>
             <td>${device.name}</td>
             <td>${device.type}</td>
             <td>${device.location}</td>
-            <td>${device.status}</td>
+            <td class="status">${device.status}</td>
             <td>
                 <button onclick="deleteDevice(${device.id})">Delete</button>
             </td>
         `;
         devicesTableBody.appendChild(tr);
+        loadedDevices.set(device.id, { device, row: tr, version: -1 });
+        updateDeviceOption(device);
+        lastLoadedId = device.id;
     }
+    nextCursor = page.nextCursor;
+    loadMoreDevicesBtn.hidden = nextCursor === null;
 }
 
-function populateDeviceSelect(devices) {
-    loanDeviceSelect.innerHTML = '';
-    for (const device of devices) {
-        if (device.status === 'AVAILABLE') {
-            const option = document.createElement('option');
-            option.value = device.id;
-            option.textContent = `${device.name} (${device.type})`;
-            loanDeviceSelect.appendChild(option);
+function updateDeviceOption(device) {
+    const option = loanDeviceSelect.querySelector(`option[value="${device.id}"]`);
+    if (device.status !== 'AVAILABLE') {
+        if (option) option.remove();
+        return;
+    }
+    if (option) return;
+    const created = document.createElement('option');
+    created.value = device.id;
+    created.textContent = `${device.name} (${device.type})`;
+    loanDeviceSelect.appendChild(created);
+}
+
+/**
+ * Patches the loaded rows from one SSE payload ({deviceId, status, version}) instead of
+ * reloading the table. Devices created after the last loaded one are fetched in one request
+ * per burst of events, and only while the table already shows its last page.
+ */
+function applyDeviceEvent(event) {
+    const entry = loadedDevices.get(event.deviceId);
+    if (event.status == null) {
+        if (entry) {
+            entry.row.remove();
+            loadedDevices.delete(event.deviceId);
+            updateDeviceOption({ ...entry.device, status: null });
         }
+        return;
+    }
+    if (entry) {
+        // Events can arrive out of commit order; the device version says which one is newer
+        if (event.version <= entry.version) return;
+        entry.version = event.version;
+        entry.device.status = event.status;
+        entry.row.querySelector('.status').textContent = event.status;
+        updateDeviceOption(entry.device);
+    } else if (nextCursor === null && (lastLoadedId === null || event.deviceId > lastLoadedId)) {
+        scheduleNewDevicesFetch();
     }
 }
 
+function scheduleNewDevicesFetch() {
+    if (newDevicesTimer !== null) return;
+    newDevicesTimer = setTimeout(async () => {
+        newDevicesTimer = null;
+        try {
+            appendDevices(await fetchDevicesPage(lastLoadedId));
+        } catch (err) {
+            deviceMessageDiv.textContent = err.message;
+            deviceMessageDiv.className = 'error';
+        }
+    }, NEW_DEVICES_DELAY_MS);
+}
+
 async function addDevice() {
     deviceMessageDiv.textContent = '';
     deviceMessageDiv.className = '';
@@ -86,7 +161,6 @@ async function addDevice() {
         deviceNameInput.value = '';
         deviceTypeInput.value = '';
         deviceLocationInput.value = '';
-        fetchDevices();
     } catch (err) {
         deviceMessageDiv.textContent = err.message;
         deviceMessageDiv.className = 'error';
@@ -104,7 +178,6 @@ async function deleteDevice(id) {
         }
         deviceMessageDiv.textContent = 'Device deleted successfully';
         deviceMessageDiv.className = 'success';
-        fetchDevices();
         fetchLoans();
     } catch (err) {
         deviceMessageDiv.textContent = err.message;
@@ -171,7 +244,6 @@ async function addLoan() {
         loanMessageDiv.className = 'success';
         loanBorrowedByInput.value = '';
         fetchLoans();
-        fetchDevices();
     } catch (err) {
         loanMessageDiv.textContent = err.message;
         loanMessageDiv.className = 'error';
@@ -190,7 +262,6 @@ async function markReturned(id) {
         loanMessageDiv.textContent = `Loan ${id} marked as returned`;
         loanMessageDiv.className = 'success';
         fetchLoans();
-        fetchDevices();
     } catch (err) {
         loanMessageDiv.textContent = err.message;
         loanMessageDiv.className = 'error';
@@ -200,6 +271,17 @@ async function markReturned(id) {
 // Event Listeners
 addDeviceBtn.addEventListener('click', addDevice);
 addLoanBtn.addEventListener('click', addLoan);
+loadMoreDevicesBtn.addEventListener('click', loadMoreDevices);
+
+// Device rows follow the server's change events; our own writes arrive through them too.
+// The server drops subscribers that fall behind, so after a reconnect the first page is reloaded.
+const deviceEvents = new EventSource(`${API_BASE}/devices/events`);
+let deviceEventsOpened = false;
+deviceEvents.addEventListener('device', (e) => applyDeviceEvent(JSON.parse(e.data)));
+deviceEvents.addEventListener('open', () => {
+    if (deviceEventsOpened) fetchDevices();
+    deviceEventsOpened = true;
+});
 
 // Initial load
 fetchDevices();
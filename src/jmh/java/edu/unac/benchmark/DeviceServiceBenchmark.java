@@ -0,0 +1,29 @@
+package edu.unac.benchmark;
+
+import edu.unac.domain.Device;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceServiceBenchmark {
+
+    @Benchmark
+    public Device registerDevice(InventoryState state) {
+        Device device = new Device();
+        device.setName("Benchmark laptop");
+        device.setType("Laptop");
+        device.setLocation("Building A");
+        return state.deviceService.registerDevice(device);
+    }
+}
@@ -0,0 +1,82 @@
+package edu.unac.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.unac.InventoryManagementApplication;
+import edu.unac.domain.Device;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.service.DeviceService;
+import edu.unac.service.LoanService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server against a private in-memory H2 database seeded with
+ * {@code devices} devices and {@code loansPerDevice} returned loans each.
+ */
+@State(Scope.Benchmark)
+public class InventoryState {
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    public int devices;
+
+    @Param({"5"})
+    public int loansPerDevice;
+
+    public ConfigurableApplicationContext context;
+    public DeviceService deviceService;
+    public LoanService loanService;
+    public ObjectMapper objectMapper;
+    public long[] deviceIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench" + devices + ";DB_CLOSE_DELAY=-1",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        deviceService = context.getBean(DeviceService.class);
+        loanService = context.getBean(LoanService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        seedDevices();
+        context.getBean(JdbcTemplate.class).update(
+                "INSERT INTO loan (device_id, borrowed_by, start_date, end_date, returned) "
+                        + "SELECT d.id, 'seed', r.X, r.X + 1, TRUE FROM device d CROSS JOIN SYSTEM_RANGE(1, ?) r",
+                loansPerDevice);
+        deviceIds = context.getBean(DeviceRepository.class).findAll().stream()
+                .mapToLong(Device::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private void seedDevices() {
+        for (int offset = 0; offset < devices; offset += SEED_BATCH) {
+            List<Device> batch = new ArrayList<>(SEED_BATCH);
+            for (int i = offset; i < Math.min(devices, offset + SEED_BATCH); i++) {
+                Device device = new Device();
+                device.setName("Device " + i);
+                device.setType(i % 2 == 0 ? "Laptop" : "Projector");
+                device.setLocation("Building " + (char) ('A' + i % 5));
+                batch.add(device);
+            }
+            deviceService.registerDevices(batch);
+        }
+    }
+}
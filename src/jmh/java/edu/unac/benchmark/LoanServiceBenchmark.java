@@ -0,0 +1,49 @@
+package edu.unac.benchmark;
+
+import edu.unac.domain.Loan;
+import edu.unac.dto.LoanView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LoanServiceBenchmark {
+    private int next;
+
+    private long nextDeviceId(InventoryState state) {
+        long id = state.deviceIds[next];
+        next = (next + 1) % state.deviceIds.length;
+        return id;
+    }
+
+    /**
+     * One checkout followed by its return, so every seeded device stays available between invocations.
+     */
+    @Benchmark
+    public Loan registerLoanAndMarkAsReturned(InventoryState state) {
+        Loan loan = new Loan();
+        loan.setDeviceId(nextDeviceId(state));
+        loan.setBorrowedBy("bench");
+        Loan created = state.loanService.registerLoan(loan);
+        return state.loanService.markAsReturned(created.getId());
+    }
+
+    @Benchmark
+    public List<LoanView> getLoansByDeviceId(InventoryState state) {
+        return state.loanService.getLoansByDeviceId(nextDeviceId(state));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.unac.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.unac.dto.DeviceView;
+import edu.unac.dto.LoanView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of the device and loan list payloads per negotiated format, built the
+ * way Spring MVC builds its converters. Payload sizes are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private List<DeviceView> devices;
+    private List<LoanView> loans;
+    private byte[] encodedDevices;
+    private byte[] encodedLoans;
+    private JavaType deviceListType;
+    private JavaType loanListType;
+
+    @Setup(Level.Trial)
+    public void load(InventoryState state) throws IOException {
+        mapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        devices = state.deviceService.getAllDevices();
+        loans = state.loanService.getAllLoans();
+        encodedDevices = mapper.writeValueAsBytes(devices);
+        encodedLoans = mapper.writeValueAsBytes(loans);
+        deviceListType = mapper.getTypeFactory().constructCollectionType(List.class, DeviceView.class);
+        loanListType = mapper.getTypeFactory().constructCollectionType(List.class, LoanView.class);
+        System.out.printf("%n%s: %d devices = %d bytes, %d loans = %d bytes%n", format,
+                devices.size(), encodedDevices.length, loans.size(), encodedLoans.length);
+    }
+
+    @Benchmark
+    public byte[] encodeDevices() throws IOException {
+        return mapper.writeValueAsBytes(devices);
+    }
+
+    @Benchmark
+    public byte[] encodeLoans() throws IOException {
+        return mapper.writeValueAsBytes(loans);
+    }
+
+    @Benchmark
+    public List<DeviceView> decodeDevices() throws IOException {
+        return mapper.readValue(encodedDevices, deviceListType);
+    }
+
+    @Benchmark
+    public List<LoanView> decodeLoans() throws IOException {
+        return mapper.readValue(encodedLoans, loanListType);
+    }
+}
@@ -0,0 +1,49 @@
+package edu.unac.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.unac.dto.DeviceView;
+import edu.unac.dto.LoanView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of the device and loan lists the list endpoints return, loaded once from the seeded database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private List<DeviceView> devices;
+    private List<LoanView> loans;
+
+    @Setup(Level.Trial)
+    public void load(InventoryState state) {
+        devices = state.deviceService.getAllDevices();
+        loans = state.loanService.getAllLoans();
+    }
+
+    @Benchmark
+    public byte[] serializeDevices(InventoryState state) throws JsonProcessingException {
+        return state.objectMapper.writeValueAsBytes(devices);
+    }
+
+    @Benchmark
+    public byte[] serializeLoans(InventoryState state) throws JsonProcessingException {
+        return state.objectMapper.writeValueAsBytes(loans);
+    }
+}
@@ -0,0 +1,118 @@
+package edu.unac.benchmark;
+
+import edu.unac.InventoryManagementApplication;
+import edu.unac.domain.Device;
+import edu.unac.service.DeviceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from starting the persistent profile on an existing data directory to the first answered
+ * request. The first measured iteration of a fork is the closest to a real process restart;
+ * later iterations show the same restart with a warmed-up JVM.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WarmRestartBenchmark {
+
+    @Param({"2000000"})
+    public int loans;
+
+    @Param({"20000"})
+    public int devices;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext running;
+
+    @Setup(Level.Trial)
+    public void createDatabase() throws IOException {
+        dataDir = Files.createTempDirectory("inventory-restart");
+        try (ConfigurableApplicationContext context = start(WebApplicationType.NONE)) {
+            DeviceService deviceService = context.getBean(DeviceService.class);
+            for (int offset = 0; offset < devices; offset += 1000) {
+                List<Device> batch = new ArrayList<>(1000);
+                for (int i = offset; i < Math.min(devices, offset + 1000); i++) {
+                    Device device = new Device();
+                    device.setName("Device " + i);
+                    device.setType("Laptop");
+                    device.setLocation("Building A");
+                    batch.add(device);
+                }
+                deviceService.registerDevices(batch);
+            }
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            long firstDeviceId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM device", Long.class);
+            jdbcTemplate.update("INSERT INTO loan (device_id, borrowed_by, start_date, end_date, returned) "
+                            + "SELECT ? + MOD(X, ?), 'seed', X, X + 1, TRUE FROM SYSTEM_RANGE(1, ?)",
+                    firstDeviceId, devices, loans);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() {
+        if (running != null) {
+            running.close();
+            running = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDatabase() throws IOException {
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public int restartAndServeFirstRequest() throws Exception {
+        running = start(WebApplicationType.SERVLET);
+        long deviceId = running.getBean(JdbcTemplate.class).queryForObject("SELECT MIN(id) FROM device", Long.class);
+        int port = ((WebServerApplicationContext) running).getWebServer().getPort();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/api/loans/device/" + deviceId)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode();
+        }
+    }
+
+    private ConfigurableApplicationContext start(WebApplicationType webApplicationType) {
+        return new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .web(webApplicationType)
+                .profiles("persistent")
+                .run("--inventory.data-dir=" + dataDir.toAbsolutePath(),
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+}
@@ -2,8 +2,10 @@ package edu.unac;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class InventoryManagementApplication {
     public static void main(String[] args) {
         SpringApplication.run(InventoryManagementApplication.class, args);
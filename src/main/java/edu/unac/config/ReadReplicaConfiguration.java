@@ -0,0 +1,58 @@
+package edu.unac.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Splits reads from writes once {@code inventory.datasource.replica.url} points at a read replica.
+ * The primary pool keeps using {@code spring.datasource.*}; the replica pool is configured under
+ * {@code inventory.datasource.replica.*}, pool settings under its {@code hikari} prefix.
+ * Flyway and every other consumer of the application {@link DataSource} run outside read-only
+ * transactions and therefore always reach the primary.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("inventory.datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("inventory.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${inventory.datasource.replica.url}") String url,
+                                              @Value("${inventory.datasource.replica.username:sa}") String username,
+                                              @Value("${inventory.datasource.replica.password:}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 @Value("${inventory.datasource.replica.read-your-writes:1s}") Duration readYourWrites) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, readYourWrites));
+    }
+}
@@ -0,0 +1,63 @@
+package edu.unac.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * <p>
+ * Replicas lag, and a read that follows a write (including reloading a device the write just
+ * evicted from the cache) must see it. So for {@code readYourWrites} after any read-write
+ * transaction commits, read-only transactions go to the primary as well. The window is
+ * process-wide because requests carry no session to scope it to.
+ * <p>
+ * The routing decision needs the transaction's read-only flag, which is only known after the
+ * transaction has begun; wrap this in a {@code LazyConnectionDataSourceProxy} so the physical
+ * connection is fetched at the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final long readYourWritesNanos;
+    private final LongSupplier nanoClock;
+    private volatile long lastWriteCommit;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWrites) {
+        this(primary, replica, readYourWrites, System::nanoTime);
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWrites, LongSupplier nanoClock) {
+        this.readYourWritesNanos = readYourWrites.toNanos();
+        this.nanoClock = nanoClock;
+        this.lastWriteCommit = nanoClock.getAsLong() - readYourWritesNanos - 1;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return nanoClock.getAsLong() - lastWriteCommit > readYourWritesNanos ? Route.REPLICA : Route.PRIMARY;
+        }
+        if (readYourWritesNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWriteCommit = nanoClock.getAsLong();
+                }
+            });
+        }
+        return Route.PRIMARY;
+    }
+}
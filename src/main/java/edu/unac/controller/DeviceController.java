@@ -2,11 +2,30 @@ package edu.unac.controller;
 
 import edu.unac.domain.Device;
 import edu.unac.domain.DeviceStatus;
+import edu.unac.dto.BatchResult;
+import edu.unac.dto.CacheStats;
+import edu.unac.dto.DeviceFilter;
+import edu.unac.dto.DeviceImportStatus;
+import edu.unac.dto.DevicePage;
+import edu.unac.dto.DeviceStats;
+import edu.unac.dto.DeviceView;
+import edu.unac.event.DeviceEventBroadcaster;
+import edu.unac.service.ChangeVersions;
+import edu.unac.service.DeviceImportService;
 import edu.unac.service.DeviceService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 @RestController
@@ -14,25 +33,92 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class DeviceController {
     private final DeviceService deviceService;
+    private final ChangeVersions changeVersions;
+    private final DeviceEventBroadcaster eventBroadcaster;
+    private final IdempotencyStore idempotencyStore;
+    private final DeviceImportService deviceImportService;
 
-    public DeviceController(DeviceService deviceService) {
+    public DeviceController(DeviceService deviceService, ChangeVersions changeVersions,
+                            DeviceEventBroadcaster eventBroadcaster, IdempotencyStore idempotencyStore,
+                            DeviceImportService deviceImportService) {
         this.deviceService = deviceService;
+        this.changeVersions = changeVersions;
+        this.eventBroadcaster = eventBroadcaster;
+        this.idempotencyStore = idempotencyStore;
+        this.deviceImportService = deviceImportService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Device>> getAllDevices() {
-        return ResponseEntity.ok(deviceService.getAllDevices());
+    public ResponseEntity<DevicePage> getDevicesPage(
+            @RequestParam(value = "limit", defaultValue = "" + DeviceService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "status", required = false) DeviceStatus status,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "location", required = false) String location,
+            @RequestParam(value = "name", required = false) String namePrefix,
+            WebRequest request) {
+        if (request.checkNotModified(changeVersions.deviceTag())) {
+            return null;
+        }
+        try {
+            DeviceFilter filter = new DeviceFilter(status, type, location, namePrefix);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .body(deviceService.getDevicesPage(filter, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // Legacy unpaged listing, kept for clients that explicitly ask for the whole table
+    @GetMapping(params = "unpaged=true")
+    public ResponseEntity<List<DeviceView>> getAllDevices(WebRequest request) {
+        // The tag is read before the data so a concurrent write can only make it look older
+        if (request.checkNotModified(changeVersions.deviceTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(deviceService.getAllDevices());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<DeviceStats> getDeviceStats() {
+        return ResponseEntity.ok(deviceService.getDeviceStats());
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDeviceEvents() {
+        return eventBroadcaster.subscribe();
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStats> getCacheStats() {
+        return ResponseEntity.ok(deviceService.getCacheStats());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Device> getDeviceById(@PathVariable("id") Long id) {
+    public ResponseEntity<Device> getDeviceById(@PathVariable("id") Long id, WebRequest request) {
+        if (request.checkNotModified(changeVersions.deviceTag())) {
+            return null;
+        }
         return deviceService.getDeviceById(id)
-                .map(ResponseEntity::ok)
+                .map(device -> ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(device))
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     @PostMapping
-    public ResponseEntity<Device> registerDevice(@RequestBody Device device) {
+    public ResponseEntity<Device> registerDevice(
+            @RequestBody Device device,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            String request = IdempotencyStore.fingerprint(device.getName(), device.getType(), device.getLocation());
+            return idempotencyStore.execute("devices", idempotencyKey, request, () -> createDevice(device));
+        }
+        return createDevice(device);
+    }
+
+    private ResponseEntity<Device> createDevice(Device device) {
         try {
             Device created = deviceService.registerDevice(device);
             return ResponseEntity.status(HttpStatus.CREATED).body(created);
@@ -41,6 +127,51 @@ public class DeviceController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> registerDevices(@RequestBody List<Device> devices) {
+        try {
+            BatchResult result = deviceService.registerDevices(devices);
+            if (result.created() == 0) {
+                return ResponseEntity.badRequest().body(result);
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /**
+     * Accepts a CSV upload and imports it in the background; poll the returned Location for progress.
+     * The container spools the part to disk (the threshold is 0 bytes) and the spooled file is
+     * renamed into place, not copied, before the job takes over. Only a spool directory on another
+     * file system falls back to a copy.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<DeviceImportStatus> importDevices(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        Path csv = Files.createTempFile("device-import-", ".csv");
+        try {
+            // transferTo(Path) would copy the part through streams; transferTo(File) renames it
+            file.transferTo(csv.toFile());
+            DeviceImportStatus status = deviceImportService.start(csv, file.getOriginalFilename());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/devices/import/" + status.jobId()))
+                    .body(status);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(csv);
+            throw e;
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<DeviceImportStatus> getImportStatus(@PathVariable("jobId") String jobId) {
+        return deviceImportService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<Device> updateDeviceStatus(@PathVariable("id") Long id, @RequestParam("status") DeviceStatus status) {
         try {
@@ -0,0 +1,117 @@
+package edu.unac.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the response of a create request under its {@value #HEADER} header, so a client
+ * retry gets the first response back instead of creating the resource again.
+ * <p>
+ * Keys are bounded in number and expire after a TTL. Concurrent requests with the same key wait
+ * for the first one to finish and then replay it. Reusing a key with a different request body is
+ * rejected with 422. A request is compared by the {@link #fingerprint} of the fields the create
+ * path accepts, so a retry that differs only in fields the server assigns (ids, dates, flags) is
+ * still a replay. Responses are kept whatever their status, except when the handler throws, in
+ * which case the key is released so the client can retry.
+ * <p>
+ * Keys are scoped per resource, not per client: the API has no authentication, so there is no
+ * client identity to scope by. Clients are expected to send random keys (UUIDs), which makes a
+ * collision between two clients negligible, and even then a different request gets 422 rather
+ * than the other client's response.
+ */
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, StoredResponse> responses;
+
+    public IdempotencyStore(@Value("${inventory.idempotency.maximum-size:50000}") long maximumSize,
+                            @Value("${inventory.idempotency.ttl:24h}") Duration ttl) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} once per {@code scope} and {@code key}. {@code request} identifies the
+     * request body and must be captured before {@code action} has a chance to modify it.
+     */
+    /**
+     * Canonical form of a request's accepted fields, in the order given: each field is length
+     * prefixed so no two field lists encode the same, then hashed to keep stored entries small.
+     */
+    public static String fingerprint(Object... fields) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object field : fields) {
+            if (field == null) {
+                canonical.append('-');
+            } else {
+                String value = field.toString();
+                canonical.append(value.length()).append(':').append(value);
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String scope, String key, String request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StoredResponse mine = new StoredResponse(request, new CompletableFuture<>());
+        StoredResponse existing = responses.asMap().putIfAbsent(scope + ':' + key, mine);
+        if (existing != null) {
+            if (!existing.request().equals(request)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+            }
+            ResponseEntity<T> stored;
+            try {
+                stored = (ResponseEntity<T>) existing.response().join();
+            } catch (CompletionException e) {
+                // The first attempt failed and released the key; let this one try again
+                return execute(scope, key, request, action);
+            }
+            return ResponseEntity.status(stored.getStatusCode())
+                    .headers(stored.getHeaders())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(stored.getBody());
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            responses.asMap().remove(scope + ':' + key, mine);
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private record StoredResponse(String request, CompletableFuture<ResponseEntity<?>> response) {
+    }
+}
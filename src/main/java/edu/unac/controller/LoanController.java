@@ -1,28 +1,156 @@
 package edu.unac.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import edu.unac.domain.Loan;
+import edu.unac.dto.LoanGroupAnalytics;
+import edu.unac.dto.LoanStats;
+import edu.unac.dto.LoanView;
+import edu.unac.dto.ReturnResult;
+import edu.unac.service.ChangeVersions;
+import edu.unac.service.LoanAnalytics;
 import edu.unac.service.LoanService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationStrategy;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/loans")
 @CrossOrigin(origins = "*")
 public class LoanController {
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+    private static final List<MediaType> EXPORT_TYPES = List.of(MediaType.APPLICATION_NDJSON, APPLICATION_CBOR_SEQ);
+    private static final ContentNegotiationStrategy ACCEPT_HEADER = new HeaderContentNegotiationStrategy();
+
     private final LoanService loanService;
+    private final ChangeVersions changeVersions;
+    private final IdempotencyStore idempotencyStore;
+    private final LoanAnalytics loanAnalytics;
+    private final ObjectWriter loanWriter;
+    private final ObjectWriter loanCborWriter;
 
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, ChangeVersions changeVersions,
+                          IdempotencyStore idempotencyStore, LoanAnalytics loanAnalytics, ObjectMapper objectMapper) {
         this.loanService = loanService;
+        this.changeVersions = changeVersions;
+        this.idempotencyStore = idempotencyStore;
+        this.loanAnalytics = loanAnalytics;
+        this.loanWriter = objectMapper.writerFor(Loan.class);
+        // Same builder Spring MVC uses for its application/cbor converter, so both encode alike
+        this.loanCborWriter = Jackson2ObjectMapperBuilder.cbor().build().writerFor(Loan.class);
     }
 
     @GetMapping
-    public ResponseEntity<List<Loan>> getAllLoans() {
-        return ResponseEntity.ok(loanService.getAllLoans());
+    public ResponseEntity<List<LoanView>> getAllLoans(WebRequest request) {
+        if (request.checkNotModified(changeVersions.loanTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(loanService.getAllLoans());
+    }
+
+    /**
+     * Streams every loan as NDJSON, or as an RFC 8742 CBOR sequence when the client prefers
+     * {@value #APPLICATION_CBOR_SEQ_VALUE}.
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_CBOR_SEQ_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportLoans(NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType contentType = negotiate(request, EXPORT_TYPES);
+        StreamingResponseBody body;
+        if (contentType.equals(APPLICATION_CBOR_SEQ)) {
+            body = outputStream -> {
+                // Binary root values need no separator: the sequence is the items back to back
+                SequenceWriter sequence = loanCborWriter.writeValues(outputStream);
+                try {
+                    loanService.exportLoans(loan -> writeItem(sequence, loan));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                sequence.flush();
+            };
+        } else {
+            body = outputStream -> {
+                OutputStream out = new BufferedOutputStream(outputStream);
+                try {
+                    loanService.exportLoans(loan -> writeLine(out, loan));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                out.flush();
+            };
+        }
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    // The first offered type compatible with the client's preferences, in preference order
+    private MediaType negotiate(NativeWebRequest request, List<MediaType> offered)
+            throws HttpMediaTypeNotAcceptableException {
+        for (MediaType requested : ACCEPT_HEADER.resolveMediaTypes(request)) {
+            for (MediaType candidate : offered) {
+                if (requested.isCompatibleWith(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(offered);
+    }
+
+    private static void writeItem(SequenceWriter sequence, Loan loan) {
+        try {
+            sequence.write(loan);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLine(OutputStream out, Loan loan) {
+        try {
+            out.write(loanWriter.writeValueAsBytes(loan));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<LoanStats> getLoanStats() {
+        return ResponseEntity.ok(loanService.getLoanStats());
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<List<LoanGroupAnalytics>> getLoanAnalytics(
+            @RequestParam(value = "by", defaultValue = "TYPE") LoanAnalytics.Dimension by) {
+        return ResponseEntity.ok(loanAnalytics.byDimension(by));
+    }
+
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<Void> rebuildLoanAnalytics() {
+        loanAnalytics.rebuild();
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{id}")
@@ -33,7 +161,17 @@ public class LoanController {
     }
 
     @PostMapping
-    public ResponseEntity<Loan> registerLoan(@RequestBody Loan loan) {
+    public ResponseEntity<Loan> registerLoan(
+            @RequestBody Loan loan,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            String request = IdempotencyStore.fingerprint(loan.getDeviceId(), loan.getBorrowedBy());
+            return idempotencyStore.execute("loans", idempotencyKey, request, () -> createLoan(loan));
+        }
+        return createLoan(loan);
+    }
+
+    private ResponseEntity<Loan> createLoan(Loan loan) {
         try {
             Loan created = loanService.registerLoan(loan);
             return ResponseEntity.status(HttpStatus.CREATED).body(created);
@@ -55,8 +193,23 @@ public class LoanController {
         }
     }
 
+    @PutMapping("/return")
+    public ResponseEntity<ReturnResult> returnLoans(@RequestBody List<Long> loanIds) {
+        try {
+            return ResponseEntity.ok(loanService.returnLoans(loanIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @GetMapping("/device/{deviceId}")
-    public ResponseEntity<List<Loan>> getLoansByDeviceId(@PathVariable("deviceId") Long deviceId) {
-        return ResponseEntity.ok(loanService.getLoansByDeviceId(deviceId));
+    public ResponseEntity<List<LoanView>> getLoansByDeviceId(@PathVariable("deviceId") Long deviceId,
+                                                         WebRequest request) {
+        if (request.checkNotModified(changeVersions.loanTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(loanService.getLoansByDeviceId(deviceId));
     }
 }
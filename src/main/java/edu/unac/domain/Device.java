@@ -1,24 +1,42 @@
 package edu.unac.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_device_status_id", columnList = "status, id"),
+        @Index(name = "idx_device_type_id", columnList = "type, id"),
+        @Index(name = "idx_device_location_id", columnList = "location, id"),
+        @Index(name = "idx_device_name", columnList = "name")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Device {
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "device_seq")
+    @SequenceGenerator(name = "device_seq", sequenceName = "device_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String type;
     private String location;
     private DeviceStatus status;
     private long addedDate;
+    // Every status write bumps it while holding the row lock, so it orders one device's changes by commit.
+    // Internal only: clients neither see nor set it, so single and list reads keep the same shape
+    @JsonIgnore
+    @Version
+    private long version;
 }
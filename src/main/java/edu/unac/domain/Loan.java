@@ -6,6 +6,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(indexes = {
+        // Serves both the per-device history (leftmost column) and the open-loan check
+        @Index(name = "idx_loan_device_returned", columnList = "deviceId, returned"),
+        @Index(name = "idx_loan_returned_end", columnList = "returned, endDate")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
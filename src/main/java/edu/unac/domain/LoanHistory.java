@@ -0,0 +1,29 @@
+package edu.unac.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A returned loan moved out of the active loan table. Keeps the loan's original id.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_loan_history_device", columnList = "deviceId"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanHistory {
+    @Id
+    private Long id;
+
+    private Long deviceId;
+    private String borrowedBy;
+    private long startDate;
+    private long endDate;
+    private long archivedDate;
+
+    public Loan toLoan() {
+        return new Loan(id, deviceId, borrowedBy, startDate, endDate, true);
+    }
+}
@@ -0,0 +1,16 @@
+package edu.unac.dto;
+
+/**
+ * Outcome of one entry of a batch request, identified by its position in the request.
+ * Exactly one of {@code id} and {@code error} is set.
+ */
+public record BatchItemResult(int index, Long id, String error) {
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, id, null);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, null, error);
+    }
+}
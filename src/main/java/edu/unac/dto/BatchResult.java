@@ -0,0 +1,6 @@
+package edu.unac.dto;
+
+import java.util.List;
+
+public record BatchResult(int created, int failed, List<BatchItemResult> items) {
+}
@@ -0,0 +1,4 @@
+package edu.unac.dto;
+
+public record CacheStats(long hits, long misses, long evictions, long size) {
+}
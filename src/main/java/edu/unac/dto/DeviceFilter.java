@@ -0,0 +1,10 @@
+package edu.unac.dto;
+
+import edu.unac.domain.DeviceStatus;
+
+/**
+ * Optional criteria for device listings; {@code null} fields are not filtered on.
+ */
+public record DeviceFilter(DeviceStatus status, String type, String location, String namePrefix) {
+    public static final DeviceFilter NONE = new DeviceFilter(null, null, null, null);
+}
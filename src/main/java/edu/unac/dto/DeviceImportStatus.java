@@ -0,0 +1,21 @@
+package edu.unac.dto;
+
+import java.util.List;
+
+/**
+ * Snapshot of a device CSV import. {@code errors} holds at most the configured number of row
+ * errors, in file order; {@code errorsTruncated} tells whether more were dropped. {@code error}
+ * is set only when the whole job failed.
+ */
+public record DeviceImportStatus(String jobId, State state, String filename, long bytesTotal, long bytesRead,
+                                 long rowsRead, long imported, long failed, double rowsPerSecond,
+                                 Long startedAt, Long finishedAt, String error,
+                                 List<ImportRowError> errors, boolean errorsTruncated) {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
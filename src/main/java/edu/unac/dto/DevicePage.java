@@ -0,0 +1,10 @@
+package edu.unac.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of devices ordered by id. {@code nextCursor} is the id to pass
+ * as {@code after} to fetch the following page, or {@code null} on the last page.
+ */
+public record DevicePage(List<DeviceView> items, Long nextCursor) {
+}
@@ -0,0 +1,11 @@
+package edu.unac.dto;
+
+import edu.unac.domain.DeviceStatus;
+
+import java.util.Map;
+
+public record DeviceStats(long total,
+                          Map<DeviceStatus, Long> byStatus,
+                          Map<String, Long> byType,
+                          Map<String, Long> byLocation) {
+}
@@ -0,0 +1,10 @@
+package edu.unac.dto;
+
+import edu.unac.domain.DeviceStatus;
+
+/**
+ * Read-only row of a device list, selected straight into the record by a constructor expression
+ * so no managed entity is created. Serializes exactly like {@link edu.unac.domain.Device}.
+ */
+public record DeviceView(Long id, String name, String type, String location, DeviceStatus status, long addedDate) {
+}
@@ -0,0 +1,4 @@
+package edu.unac.dto;
+
+public record GroupCount(String key, Long count) {
+}
@@ -0,0 +1,7 @@
+package edu.unac.dto;
+
+/**
+ * A CSV row that was not imported. {@code line} is the 1-based line in the uploaded file, the header being line 1.
+ */
+public record ImportRowError(long line, String error) {
+}
@@ -0,0 +1,9 @@
+package edu.unac.dto;
+
+/**
+ * Loan analytics for one device type or location. Durations are in milliseconds and cover
+ * returned loans; {@code utilization} is the share of the group's devices currently out.
+ */
+public record LoanGroupAnalytics(String key, long devices, long loans, long out, long returned,
+                                 double averageDuration, long maxDuration, double utilization) {
+}
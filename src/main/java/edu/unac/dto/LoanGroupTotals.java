@@ -0,0 +1,9 @@
+package edu.unac.dto;
+
+/**
+ * Loan totals for the devices sharing one type and location. Durations are in milliseconds and
+ * cover returned loans only.
+ */
+public record LoanGroupTotals(String type, String location, Long loans, Long out, Long totalDuration,
+                              Long maxDuration) {
+}
@@ -0,0 +1,4 @@
+package edu.unac.dto;
+
+public record LoanStats(long total, long open, long returned) {
+}
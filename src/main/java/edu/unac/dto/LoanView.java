@@ -0,0 +1,7 @@
+package edu.unac.dto;
+
+/**
+ * Read-only row of a loan list, active or archived. Serializes exactly like {@link edu.unac.domain.Loan}.
+ */
+public record LoanView(Long id, Long deviceId, String borrowedBy, long startDate, long endDate, boolean returned) {
+}
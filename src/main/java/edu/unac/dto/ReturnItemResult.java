@@ -0,0 +1,10 @@
+package edu.unac.dto;
+
+public record ReturnItemResult(Long loanId, Outcome outcome) {
+
+    public enum Outcome {
+        RETURNED,
+        NOT_FOUND,
+        ALREADY_RETURNED
+    }
+}
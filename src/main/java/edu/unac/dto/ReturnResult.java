@@ -0,0 +1,6 @@
+package edu.unac.dto;
+
+import java.util.List;
+
+public record ReturnResult(int returned, int failed, List<ReturnItemResult> items) {
+}
@@ -0,0 +1,6 @@
+package edu.unac.dto;
+
+import edu.unac.domain.DeviceStatus;
+
+public record StatusCount(DeviceStatus status, Long count) {
+}
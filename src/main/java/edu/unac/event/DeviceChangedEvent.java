@@ -0,0 +1,20 @@
+package edu.unac.event;
+
+import edu.unac.domain.DeviceStatus;
+
+/**
+ * Published whenever a write changes a device. {@code status} is the device's new status,
+ * or {@code null} when the device was deleted. {@code version} is the device row's version
+ * after the write: 0 when it was created, and increasing in commit order for one device, so
+ * listeners that may see events out of order can tell which status is the latest.
+ */
+public record DeviceChangedEvent(Long deviceId, DeviceStatus status, long version) {
+
+    public static DeviceChangedEvent deleted(Long deviceId) {
+        return new DeviceChangedEvent(deviceId, null, 0);
+    }
+
+    public boolean isDeleted() {
+        return status == null;
+    }
+}
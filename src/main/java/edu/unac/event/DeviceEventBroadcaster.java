@@ -0,0 +1,123 @@
+package edu.unac.event;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed {@link DeviceChangedEvent}s out to Server-Sent Events subscribers.
+ * The publishing thread only offers the event to each subscriber's bounded queue; a virtual
+ * thread per subscriber does the network writes. A subscriber whose queue is full is
+ * disconnected rather than allowed to slow down writers, and is expected to reconnect and
+ * reload the devices it cares about.
+ */
+@Component
+public class DeviceEventBroadcaster implements DisposableBean {
+    public static final String EVENT_NAME = "device";
+
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public DeviceEventBroadcaster(@Value("${inventory.device-events.queue-capacity:256}") int queueCapacity,
+                                  @Value("${inventory.device-events.timeout:30m}") Duration timeout,
+                                  @Value("${inventory.device-events.heartbeat:15s}") Duration heartbeat) {
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(queueCapacity));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        subscriber.drainer = Thread.ofVirtual().name("device-events").start(subscriber::drain);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        Envelope envelope = new Envelope(sequence.incrementAndGet(), event);
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(envelope)) {
+                subscriber.close();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private record Envelope(long id, DeviceChangedEvent event) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Envelope> queue;
+        private volatile Thread drainer;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, BlockingQueue<Envelope> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void drain() {
+            try {
+                while (!closed) {
+                    Envelope envelope = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (envelope == null) {
+                        // Comment line keeps proxies from timing out idle streams and detects dead clients
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(envelope.id()))
+                                .name(EVENT_NAME)
+                                .data(envelope.event()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+            } finally {
+                close();
+                emitter.complete();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            subscribers.remove(this);
+            Thread thread = drainer;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package edu.unac.event;
+
+import edu.unac.domain.Device;
+
+/**
+ * Published when a write creates a device, with the fields it was created with. The device's
+ * initial status follows as a {@link DeviceChangedEvent} with version 0.
+ */
+public record DeviceRegisteredEvent(Long deviceId, String name, String type, String location, long addedDate) {
+
+    public static DeviceRegisteredEvent of(Device device) {
+        return new DeviceRegisteredEvent(device.getId(), device.getName(), device.getType(), device.getLocation(),
+                device.getAddedDate());
+    }
+}
@@ -0,0 +1,9 @@
+package edu.unac.event;
+
+/**
+ * Published whenever a write creates or changes a loan. {@code returned} is the loan's state
+ * after the write and {@code timestamp} is its start date when opened or its end date when
+ * returned.
+ */
+public record LoanChangedEvent(Long loanId, Long deviceId, String borrowedBy, boolean returned, long timestamp) {
+}
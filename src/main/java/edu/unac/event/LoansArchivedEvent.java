@@ -0,0 +1,9 @@
+package edu.unac.event;
+
+import java.util.List;
+
+/**
+ * Published when returned loans have been moved from the active table to the history table.
+ */
+public record LoansArchivedEvent(List<Long> loanIds) {
+}
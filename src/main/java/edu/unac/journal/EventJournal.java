@@ -0,0 +1,306 @@
+package edu.unac.journal;
+
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.DeviceRegisteredEvent;
+import edu.unac.event.LoanChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of committed device and loan transitions, kept next to the database so the
+ * history of every loan can be replayed with {@link JournalReplay} independently of it.
+ * <p>
+ * Listeners only hand entries to a bounded queue; a single writer thread drains it in batches,
+ * frames each entry as {@code [length][CRC32][payload]} into one buffer and appends the whole
+ * batch with a single write. The file is forced to disk at most once per {@code flush-interval},
+ * which bounds what a power loss can drop, and a new segment is started once the current one
+ * reaches {@code segment-size}. Segments are named after their first sequence number.
+ * <p>
+ * Journaling never holds up a commit: an entry that cannot be queued within
+ * {@code append-timeout}, or whose write fails, is dropped and counted in
+ * {@code inventory.journal.dropped}. A failed write is cut back to the last complete frame, or
+ * the segment is abandoned for a new one, so entries written afterwards stay readable.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.journal.enabled", havingValue = "true")
+public class EventJournal implements DisposableBean, MeterBinder {
+    static final int MAGIC = 0x4A524E4C;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 8;
+    static final int FRAME_HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_BATCH = 1024;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+    private static final JournalEntry STOP = JournalEntry.deviceDeleted(-1, 0);
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+
+    private final Path directory;
+    private final long segmentSize;
+    private final long flushIntervalNanos;
+    private final long appendTimeoutNanos;
+    private final BlockingQueue<JournalEntry> queue;
+    private final Thread writer;
+    private final CRC32 crc = new CRC32();
+    private final AtomicLong dropped = new AtomicLong();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    // null after a segment could not be opened or repaired; the next batch opens a new one
+    private FileChannel segment;
+    private long sequence;
+    // End of the last complete frame in the current segment
+    private long goodPosition;
+    private long lastForce;
+    private volatile long written;
+
+    public EventJournal(@Value("${inventory.journal.dir:./journal}") Path directory,
+                        @Value("${inventory.journal.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${inventory.journal.flush-interval:1s}") Duration flushInterval,
+                        @Value("${inventory.journal.queue-capacity:65536}") int queueCapacity,
+                        @Value("${inventory.journal.append-timeout:100ms}") Duration appendTimeout) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize.toBytes();
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.appendTimeoutNanos = appendTimeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Files.createDirectories(directory);
+        // Trailing segments without a single valid entry are dropped; the next one reuses their name
+        List<Path> segments = JournalReader.segments(directory);
+        for (int i = segments.size() - 1; i >= 0 && sequence == 0; i--) {
+            long last = JournalReader.lastSequence(segments.get(i));
+            if (last < 0) {
+                Files.delete(segments.get(i));
+            } else {
+                sequence = last;
+            }
+        }
+        // Always start a fresh segment so a torn tail left by a crash is never appended to
+        openSegment(sequence + 1);
+        written = sequence;
+        writer = Thread.ofPlatform().name("event-journal").daemon().start(this::drain);
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Sequence number of the last entry handed to the operating system.
+     */
+    public long lastWrittenSequence() {
+        return written;
+    }
+
+    /**
+     * Entries that were never written, because the queue stayed full or their write failed.
+     */
+    public long droppedEntries() {
+        return dropped.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("inventory.journal.dropped", this, EventJournal::droppedEntries)
+                .description("Journal entries lost because the queue was full or the write failed")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        append(JournalEntry.deviceRegistered(event.addedDate(), id(event.deviceId()), event.name(), event.type(),
+                event.location()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (event.isDeleted()) {
+            append(JournalEntry.deviceDeleted(System.currentTimeMillis(), id(event.deviceId())));
+        } else if (event.version() > 0) {
+            // Version 0 is the initial status, already implied by the DEVICE_REGISTERED entry
+            append(JournalEntry.deviceStatus(System.currentTimeMillis(), id(event.deviceId()), event.version(),
+                    event.status()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        append(JournalEntry.loan(event.returned(), event.timestamp(), id(event.deviceId()), id(event.loanId()),
+                event.borrowedBy()));
+    }
+
+    private static long id(Long id) {
+        return id == null ? 0 : id;
+    }
+
+    // Runs on the committing thread, so it waits at most append-timeout for the writer to catch up
+    private void append(JournalEntry entry) {
+        try {
+            if (queue.offer(entry, appendTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.incrementAndGet();
+        log.warn("Journal queue full, dropped {}", entry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        if (!queue.offer(STOP, SHUTDOWN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS)) {
+            writer.interrupt();
+        }
+        writer.join(SHUTDOWN_TIMEOUT.toMillis());
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+    }
+
+    private void drain() {
+        List<JournalEntry> batch = new ArrayList<>(MAX_BATCH);
+        boolean running = true;
+        while (running) {
+            try {
+                JournalEntry first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            running &= !batch.remove(STOP);
+            long before = written;
+            try {
+                write(batch);
+                if (segment != null && System.nanoTime() - lastForce >= flushIntervalNanos) {
+                    segment.force(false);
+                    lastForce = System.nanoTime();
+                }
+            } catch (IOException | RuntimeException e) {
+                long lost = batch.size() - (written - before);
+                dropped.addAndGet(lost);
+                log.error("Failed to write {} journal entries", lost, e);
+                recover();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Forgets the entries that did not make it and cuts the segment back to its last complete
+     * frame, so the next batch does not land behind a torn one and become unreadable.
+     */
+    private void recover() {
+        sequence = written;
+        buffer.clear();
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.truncate(goodPosition);
+            segment.position(goodPosition);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot repair journal segment, continuing in a new one", e);
+            try {
+                segment.close();
+            } catch (IOException ignored) {
+                // Already failing; the new segment is what matters
+            }
+            segment = null;
+        }
+    }
+
+    private void write(List<JournalEntry> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        buffer.clear();
+        if (segment == null) {
+            openSegment(sequence + 1);
+        }
+        for (JournalEntry pending : batch) {
+            JournalEntry entry = pending.withSequence(sequence + 1);
+            int frame = FRAME_HEADER_SIZE + entry.encodedSize();
+            long segmentEnd = segment.position() + buffer.position();
+            boolean rotate = segmentEnd > HEADER_SIZE && segmentEnd + frame > segmentSize;
+            if (rotate || buffer.remaining() < frame) {
+                writeBuffered();
+                if (rotate) {
+                    segment.force(false);
+                    segment.close();
+                    segment = null;
+                    openSegment(entry.sequence());
+                }
+                ensureCapacity(frame);
+            }
+            int start = buffer.position();
+            buffer.position(start + FRAME_HEADER_SIZE);
+            entry.writeTo(buffer);
+            int length = buffer.position() - start - FRAME_HEADER_SIZE;
+            crc.reset();
+            crc.update(buffer.slice(start + FRAME_HEADER_SIZE, length));
+            buffer.putInt(start, length).putInt(start + 4, (int) crc.getValue());
+            sequence++;
+        }
+        writeBuffered();
+    }
+
+    // Everything buffered has a sequence up to the current one, so a complete write covers it
+    private void writeBuffered() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        buffer.clear();
+        goodPosition = segment.position();
+        written = sequence;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(needed) << 1);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+        } catch (IOException e) {
+            // Leave no headerless file behind to collide with the next attempt under the same name
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        segment = channel;
+        goodPosition = HEADER_SIZE;
+        lastForce = System.nanoTime();
+    }
+}
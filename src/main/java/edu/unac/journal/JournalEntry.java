@@ -0,0 +1,110 @@
+package edu.unac.journal;
+
+import edu.unac.domain.DeviceStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One journaled transition. Ids that do not apply to the entry's type are 0, as are missing ids;
+ * strings that do not apply are {@code null}. {@code version} is the device row version a
+ * {@link Type#DEVICE_STATUS} entry was written at, which orders a device's entries by commit
+ * where the journal order may not.
+ * <p>
+ * Binary layout of the payload, big-endian: sequence (8), type (1), timestamp (8), deviceId (8),
+ * loanId (8), version (8), status ordinal or -1 (1), then borrowedBy, name, deviceType and
+ * location, each as a UTF-8 byte length or -1 (2) followed by the bytes.
+ */
+public record JournalEntry(long sequence, Type type, long timestamp, long deviceId, long loanId, long version,
+                           DeviceStatus status, String borrowedBy, String name, String deviceType,
+                           String location) {
+    static final int FIXED_SIZE = 8 + 1 + 8 + 8 + 8 + 8 + 1 + 4 * 2;
+    private static final DeviceStatus[] STATUSES = DeviceStatus.values();
+    private static final Type[] TYPES = Type.values();
+
+    public enum Type {
+        DEVICE_STATUS,
+        DEVICE_DELETED,
+        LOAN_OPENED,
+        LOAN_RETURNED,
+        DEVICE_REGISTERED
+    }
+
+    static JournalEntry deviceStatus(long timestamp, long deviceId, long version, DeviceStatus status) {
+        return new JournalEntry(0, Type.DEVICE_STATUS, timestamp, deviceId, 0, version, status, null, null, null, null);
+    }
+
+    static JournalEntry deviceDeleted(long timestamp, long deviceId) {
+        return new JournalEntry(0, Type.DEVICE_DELETED, timestamp, deviceId, 0, 0, null, null, null, null, null);
+    }
+
+    static JournalEntry deviceRegistered(long addedDate, long deviceId, String name, String deviceType,
+                                         String location) {
+        return new JournalEntry(0, Type.DEVICE_REGISTERED, addedDate, deviceId, 0, 0, null, null,
+                name, deviceType, location);
+    }
+
+    static JournalEntry loan(boolean returned, long timestamp, long deviceId, long loanId, String borrowedBy) {
+        return new JournalEntry(0, returned ? Type.LOAN_RETURNED : Type.LOAN_OPENED, timestamp, deviceId, loanId, 0,
+                null, borrowedBy, null, null, null);
+    }
+
+    JournalEntry withSequence(long newSequence) {
+        return new JournalEntry(newSequence, type, timestamp, deviceId, loanId, version, status, borrowedBy,
+                name, deviceType, location);
+    }
+
+    int encodedSize() {
+        return FIXED_SIZE + utf8Length(borrowedBy) + utf8Length(name) + utf8Length(deviceType) + utf8Length(location);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(sequence)
+                .put((byte) type.ordinal())
+                .putLong(timestamp)
+                .putLong(deviceId)
+                .putLong(loanId)
+                .putLong(version)
+                .put(status == null ? -1 : (byte) status.ordinal());
+        putString(buffer, borrowedBy);
+        putString(buffer, name);
+        putString(buffer, deviceType);
+        putString(buffer, location);
+    }
+
+    static JournalEntry readFrom(ByteBuffer buffer) {
+        long sequence = buffer.getLong();
+        Type type = TYPES[buffer.get()];
+        long timestamp = buffer.getLong();
+        long deviceId = buffer.getLong();
+        long loanId = buffer.getLong();
+        long version = buffer.getLong();
+        byte status = buffer.get();
+        return new JournalEntry(sequence, type, timestamp, deviceId, loanId, version,
+                status < 0 ? null : STATUSES[status],
+                getString(buffer), getString(buffer), getString(buffer), getString(buffer));
+    }
+
+    private static int utf8Length(String value) {
+        return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package edu.unac.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Reads journal segments in order through read-only memory maps. Within a segment, reading stops
+ * at the first frame that is incomplete or fails its checksum, which is where a crash tore the
+ * last write; the next segment is read normally.
+ */
+public final class JournalReader {
+
+    private JournalReader() {
+    }
+
+    public static void read(Path directory, Consumer<JournalEntry> consumer) throws IOException {
+        for (Path segment : segments(directory)) {
+            readSegment(segment, consumer);
+        }
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Names embed the zero-padded first sequence, so lexical order is journal order
+            return files.filter(EventJournal::isSegment).sorted().toList();
+        }
+    }
+
+    /**
+     * Returns the last valid sequence in {@code segment}, or -1 if it holds no valid entry.
+     */
+    static long lastSequence(Path segment) throws IOException {
+        long[] last = {-1};
+        readSegment(segment, entry -> last[0] = entry.sequence());
+        return last[0];
+    }
+
+    private static void readSegment(Path segment, Consumer<JournalEntry> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() < EventJournal.HEADER_SIZE) {
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != EventJournal.MAGIC || buffer.getInt() != EventJournal.VERSION) {
+                throw new IOException("Not a journal segment: " + segment);
+            }
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= EventJournal.FRAME_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < JournalEntry.FIXED_SIZE || length > buffer.remaining()) {
+                    return;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return;
+                }
+                consumer.accept(JournalEntry.readFrom(payload));
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package edu.unac.journal;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.domain.Loan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds devices and loans from a journal directory. Run it against a copy of
+ * {@code inventory.journal.dir} to audit or recover state without the database:
+ * <pre>
+ * java -cp app.jar -Dloader.main=edu.unac.journal.JournalReplay org.springframework.boot.loader.launch.PropertiesLauncher data/journal
+ * </pre>
+ * Entries are journaled in the order their commits' listeners ran, which for concurrent commits
+ * need not be commit order. Replay therefore never relies on it: a device keeps the status with
+ * the highest version, a deleted device stays deleted, and a loan stays returned once a return
+ * has been seen, whichever entry arrives first.
+ */
+public final class JournalReplay {
+
+    /**
+     * Replayed state. Deleted devices are absent from {@code devices}; both maps keep insertion order.
+     */
+    public record State(Map<Long, Device> devices, Map<Long, Loan> loans, long entries, long lastSequence) {
+
+        public long openLoans() {
+            return loans.values().stream().filter(loan -> !loan.isReturned()).count();
+        }
+    }
+
+    private JournalReplay() {
+    }
+
+    public static State replay(Path directory) throws IOException {
+        Map<Long, Device> devices = new LinkedHashMap<>();
+        Set<Long> deleted = new HashSet<>();
+        Map<Long, Loan> loans = new LinkedHashMap<>();
+        long[] counters = new long[2];
+        JournalReader.read(directory, entry -> {
+            counters[0]++;
+            counters[1] = entry.sequence();
+            switch (entry.type()) {
+                case DEVICE_REGISTERED -> {
+                    if (!deleted.contains(entry.deviceId())) {
+                        // A later status may have been journaled first; it keeps its status and version
+                        Device device = devices.computeIfAbsent(entry.deviceId(), id -> new Device(id, null, null,
+                                null, DeviceStatus.AVAILABLE, 0, 0));
+                        device.setName(entry.name());
+                        device.setType(entry.deviceType());
+                        device.setLocation(entry.location());
+                        device.setAddedDate(entry.timestamp());
+                    }
+                }
+                case DEVICE_STATUS -> {
+                    if (!deleted.contains(entry.deviceId())) {
+                        Device device = devices.computeIfAbsent(entry.deviceId(), id -> new Device(id, null, null,
+                                null, entry.status(), 0, entry.version()));
+                        if (entry.version() >= device.getVersion()) {
+                            device.setStatus(entry.status());
+                            device.setVersion(entry.version());
+                        }
+                    }
+                }
+                case DEVICE_DELETED -> {
+                    // Ids are never reused, so whatever arrives for a deleted device is stale
+                    deleted.add(entry.deviceId());
+                    devices.remove(entry.deviceId());
+                }
+                case LOAN_OPENED -> {
+                    Loan loan = loans.computeIfAbsent(entry.loanId(), id -> new Loan(id, entry.deviceId(),
+                            entry.borrowedBy(), 0, 0, false));
+                    loan.setStartDate(entry.timestamp());
+                }
+                case LOAN_RETURNED -> {
+                    Loan loan = loans.computeIfAbsent(entry.loanId(), id -> new Loan(id, entry.deviceId(),
+                            entry.borrowedBy(), 0, 0, false));
+                    loan.setReturned(true);
+                    loan.setEndDate(entry.timestamp());
+                }
+            }
+        });
+        return new State(devices, loans, counters[0], counters[1]);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JournalReplay <journal-dir>");
+            System.exit(2);
+        }
+        State state = replay(Path.of(args[0]));
+        Map<DeviceStatus, Long> byStatus = new EnumMap<>(DeviceStatus.class);
+        state.devices().values().forEach(device -> byStatus.merge(device.getStatus(), 1L, Long::sum));
+        System.out.printf("entries=%d lastSequence=%d%n", state.entries(), state.lastSequence());
+        System.out.printf("devices=%d %s%n", state.devices().size(), byStatus);
+        System.out.printf("loans=%d open=%d%n", state.loans().size(), state.openLoans());
+    }
+}
@@ -0,0 +1,34 @@
+package edu.unac.metrics;
+
+import edu.unac.domain.DeviceStatus;
+import edu.unac.service.AvailabilityIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inventory gauges: devices per {@link DeviceStatus} and currently open loans, read from the
+ * in-memory {@link AvailabilityIndex} so a scrape never queries the database.
+ */
+@Component
+public class InventoryMetrics implements MeterBinder {
+    private final AvailabilityIndex availabilityIndex;
+
+    public InventoryMetrics(AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (DeviceStatus status : DeviceStatus.values()) {
+            Gauge.builder("inventory.devices", availabilityIndex, index -> index.count(status))
+                    .description("Devices currently in the given status")
+                    .tag("status", status.name())
+                    .register(registry);
+        }
+        Gauge.builder("inventory.loans.open", availabilityIndex, AvailabilityIndex::openLoanCount)
+                .description("Loans that have not been returned yet")
+                .register(registry);
+    }
+}
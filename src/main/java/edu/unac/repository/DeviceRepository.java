@@ -1,12 +1,71 @@
 package edu.unac.repository;
 
 import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.dto.DeviceView;
+import edu.unac.dto.GroupCount;
+import edu.unac.dto.StatusCount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface DeviceRepository extends JpaRepository<Device, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface DeviceRepository extends JpaRepository<Device, Long>, JpaSpecificationExecutor<Device>,
+        DeviceViewQueries {
+
+    @Query("SELECT new edu.unac.dto.DeviceView(d.id, d.name, d.type, d.location, d.status, d.addedDate) "
+            + "FROM Device d ORDER BY d.id")
+    List<DeviceView> findAllViews();
 
     @Query("SELECT COUNT(l) > 0 FROM Loan l WHERE l.deviceId = :deviceId AND l.returned = false")
     boolean existsLoanByDeviceId(@Param("deviceId") Long deviceId);
+
+    @Query("SELECT d.id, d.status, d.version FROM Device d")
+    Stream<Object[]> streamIdStatusAndVersion();
+
+    @Query("SELECT d.id, d.type, d.location FROM Device d")
+    Stream<Object[]> streamIdTypeAndLocation();
+
+    @Query("SELECT new edu.unac.dto.StatusCount(d.status, COUNT(d)) FROM Device d GROUP BY d.status")
+    List<StatusCount> countGroupedByStatus();
+
+    @Query("SELECT new edu.unac.dto.GroupCount(d.type, COUNT(d)) FROM Device d GROUP BY d.type")
+    List<GroupCount> countGroupedByType();
+
+    @Query("SELECT new edu.unac.dto.GroupCount(d.location, COUNT(d)) FROM Device d GROUP BY d.location")
+    List<GroupCount> countGroupedByLocation();
+
+    /**
+     * Moves the device to {@code newStatus} only if it is currently in {@code expected}.
+     * Returns the number of rows changed, so 0 means the device is missing or was in another state.
+     */
+    @Modifying
+    @Query("UPDATE Device d SET d.status = :newStatus, d.version = d.version + 1 "
+            + "WHERE d.id = :id AND d.status = :expected")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expected") DeviceStatus expected,
+                            @Param("newStatus") DeviceStatus newStatus);
+
+    @Modifying
+    @Query("UPDATE Device d SET d.status = :status, d.version = d.version + 1 WHERE d.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") DeviceStatus status);
+
+    @Modifying
+    @Query("UPDATE Device d SET d.status = :status, d.version = d.version + 1 WHERE d.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") DeviceStatus status);
+
+    /**
+     * Version the current transaction's own status update left on the device; the row lock it
+     * holds keeps anyone else from moving it until commit.
+     */
+    @Query("SELECT d.version FROM Device d WHERE d.id = :id")
+    long findVersionById(@Param("id") Long id);
+
+    @Query("SELECT d.id, d.version FROM Device d WHERE d.id IN :ids")
+    List<Object[]> findIdAndVersionByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,54 @@
+package edu.unac.repository;
+
+import edu.unac.domain.Device;
+import edu.unac.dto.DeviceFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class DeviceSpecifications {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private DeviceSpecifications() {
+    }
+
+    /**
+     * Equality on status, type and location plus a case-sensitive name prefix, so every
+     * predicate can be answered from an index. Rows are restricted to ids after {@code after}
+     * for keyset pagination.
+     */
+    public static Specification<Device> matching(DeviceFilter filter, Long after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(5);
+            if (after != null) {
+                predicates.add(cb.greaterThan(root.get("id"), after));
+            }
+            if (filter.status() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.status()));
+            }
+            if (filter.type() != null) {
+                predicates.add(cb.equal(root.get("type"), filter.type()));
+            }
+            if (filter.location() != null) {
+                predicates.add(cb.equal(root.get("location"), filter.location()));
+            }
+            if (filter.namePrefix() != null) {
+                predicates.add(cb.like(root.get("name"), escapeLike(filter.namePrefix()) + "%", LIKE_ESCAPE));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package edu.unac.repository;
+
+import edu.unac.domain.Device;
+import edu.unac.dto.DeviceView;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Specification queries that select {@link DeviceView} records instead of entities. Derived
+ * fluent queries cannot project a specification into a class, so these are built with Criteria.
+ */
+public interface DeviceViewQueries {
+
+    /**
+     * Up to {@code limit} devices matching {@code spec}, ordered by id.
+     */
+    List<DeviceView> findViews(Specification<Device> spec, int limit);
+}
@@ -0,0 +1,34 @@
+package edu.unac.repository;
+
+import edu.unac.domain.Device;
+import edu.unac.dto.DeviceView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+class DeviceViewQueriesImpl implements DeviceViewQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<DeviceView> findViews(Specification<Device> spec, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DeviceView> query = builder.createQuery(DeviceView.class);
+        Root<Device> device = query.from(Device.class);
+        query.select(builder.construct(DeviceView.class, device.get("id"), device.get("name"), device.get("type"),
+                device.get("location"), device.get("status"), device.get("addedDate")));
+        Predicate predicate = spec.toPredicate(device, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(builder.asc(device.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
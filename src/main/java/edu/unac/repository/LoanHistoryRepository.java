@@ -0,0 +1,44 @@
+package edu.unac.repository;
+
+import edu.unac.domain.LoanHistory;
+import edu.unac.dto.LoanGroupTotals;
+import edu.unac.dto.LoanView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface LoanHistoryRepository extends JpaRepository<LoanHistory, Long> {
+
+    @Query("SELECT new edu.unac.dto.LoanView(h.id, h.deviceId, h.borrowedBy, h.startDate, h.endDate, true) "
+            + "FROM LoanHistory h WHERE h.deviceId = :deviceId ORDER BY h.id")
+    List<LoanView> findViewsByDeviceId(@Param("deviceId") Long deviceId);
+
+    @Query("SELECT new edu.unac.dto.LoanGroupTotals(d.type, d.location, COUNT(h), 0L, "
+            + "COALESCE(SUM(h.endDate - h.startDate), 0L), COALESCE(MAX(h.endDate - h.startDate), 0L)) "
+            + "FROM LoanHistory h LEFT JOIN Device d ON d.id = h.deviceId GROUP BY d.type, d.location")
+    List<LoanGroupTotals> computeGroupTotals();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + LoanRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT h FROM LoanHistory h ORDER BY h.id")
+    Stream<LoanHistory> streamAllOrderById();
+
+    /**
+     * Copies the given returned loans into the history table with one INSERT ... SELECT.
+     */
+    @Modifying
+    @Query("INSERT INTO LoanHistory (id, deviceId, borrowedBy, startDate, endDate, archivedDate) "
+            + "SELECT l.id, l.deviceId, l.borrowedBy, l.startDate, l.endDate, :archivedDate "
+            + "FROM Loan l WHERE l.id IN :ids AND l.returned = true")
+    int copyReturnedLoans(@Param("ids") Collection<Long> ids, @Param("archivedDate") long archivedDate);
+}
@@ -1,10 +1,86 @@
 package edu.unac.repository;
 
 import edu.unac.domain.Loan;
+import edu.unac.dto.LoanGroupTotals;
+import edu.unac.dto.LoanStats;
+import edu.unac.dto.LoanView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
+    int EXPORT_FETCH_SIZE = 500;
+
     List<Loan> findByDeviceId(Long deviceId);
+
+    @Query("SELECT new edu.unac.dto.LoanView(l.id, l.deviceId, l.borrowedBy, l.startDate, l.endDate, l.returned) "
+            + "FROM Loan l ORDER BY l.id")
+    List<LoanView> findAllViews();
+
+    @Query("SELECT new edu.unac.dto.LoanView(l.id, l.deviceId, l.borrowedBy, l.startDate, l.endDate, l.returned) "
+            + "FROM Loan l WHERE l.deviceId = :deviceId ORDER BY l.id")
+    List<LoanView> findViewsByDeviceId(@Param("deviceId") Long deviceId);
+
+    @Query("SELECT l.deviceId, l.id FROM Loan l WHERE l.returned = false")
+    Stream<Object[]> streamOpenDeviceAndLoanIds();
+
+    @Query("SELECT new edu.unac.dto.LoanStats(COUNT(l), "
+            + "COALESCE(SUM(CASE WHEN l.returned = false THEN 1L ELSE 0L END), 0L), "
+            + "COALESCE(SUM(CASE WHEN l.returned = true THEN 1L ELSE 0L END), 0L)) FROM Loan l")
+    LoanStats computeStats();
+
+    @Query("SELECT new edu.unac.dto.LoanGroupTotals(d.type, d.location, COUNT(l), "
+            + "COALESCE(SUM(CASE WHEN l.returned = false THEN 1L ELSE 0L END), 0L), "
+            + "COALESCE(SUM(CASE WHEN l.returned = true THEN l.endDate - l.startDate ELSE 0L END), 0L), "
+            + "COALESCE(MAX(CASE WHEN l.returned = true THEN l.endDate - l.startDate ELSE 0L END), 0L)) "
+            + "FROM Loan l LEFT JOIN Device d ON d.id = l.deviceId GROUP BY d.type, d.location")
+    List<LoanGroupTotals> computeGroupTotals();
+
+    @Query("SELECT l.id, l.startDate, d.type, d.location FROM Loan l LEFT JOIN Device d ON d.id = l.deviceId "
+            + "WHERE l.returned = false")
+    Stream<Object[]> streamOpenLoanGroups();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT l FROM Loan l ORDER BY l.id")
+    Stream<Loan> streamAllOrderById();
+
+    /**
+     * Closes the loan only if it is still open. Returns 0 when another request returned it first.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Loan l SET l.returned = true, l.endDate = :endDate WHERE l.id = :id AND l.returned = false")
+    int markReturnedIfOpen(@Param("id") Long id, @Param("endDate") long endDate);
+
+    /**
+     * Loads the loans and holds row locks on them until the transaction ends, so single returns
+     * of the same loans wait for a bulk return instead of interleaving with it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.id IN :ids")
+    List<Loan> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Loan l SET l.returned = true, l.endDate = :endDate WHERE l.id IN :ids AND l.returned = false")
+    int markAllReturnedIfOpen(@Param("ids") Collection<Long> ids, @Param("endDate") long endDate);
+
+    @Query("SELECT l.id FROM Loan l WHERE l.returned = true AND l.endDate < :cutoff")
+    List<Long> findReturnedIdsEndedBefore(@Param("cutoff") long cutoff, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM Loan l WHERE l.id IN :ids AND l.returned = true")
+    int deleteReturnedByIdIn(@Param("ids") Collection<Long> ids);
 }
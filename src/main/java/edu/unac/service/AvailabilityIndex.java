@@ -0,0 +1,253 @@
+package edu.unac.service;
+
+import edu.unac.domain.DeviceStatus;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.LoanChangedEvent;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process view of which devices are in which status and which loan each device currently
+ * has open, rebuilt from the database at startup and kept current from committed change events.
+ * <p>
+ * The database stays authoritative: the index is only trusted for negative answers ("this
+ * device cannot be loaned/deleted"), which lets those requests fail without a query. A device
+ * the index knows nothing about, or believes available, is always checked against the database.
+ * <p>
+ * Open loans are tracked as deviceId to loanId in a primitive map. Loan ids only grow, so the
+ * entry for a device keeps the highest loan id seen, negated once that loan is returned; events
+ * delivered out of order for the same device therefore cannot resurrect a returned loan.
+ * Statuses are one bitmap per {@link DeviceStatus}, indexed by device id. Each device's status
+ * is applied only if its version is at least the last one applied, and a deleted device ignores
+ * every later status, so listeners running out of commit order cannot leave a stale status.
+ */
+@Component
+public class AvailabilityIndex implements SmartInitializingSingleton {
+    private static final long NO_LOAN = 0;
+    private static final long NO_VERSION = -1;
+    // Ids are never reused, so a deleted device outranks any status still in flight for it
+    private static final long DELETED = Long.MAX_VALUE;
+    private static final DeviceStatus[] STATUSES = DeviceStatus.values();
+
+    private final DeviceRepository deviceRepository;
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final StampedLock lock = new StampedLock();
+    private final LongLongMap loanByDevice = new LongLongMap();
+    private final LongLongMap versionByDevice = new LongLongMap();
+    private final BitSet[] devicesByStatus = new BitSet[STATUSES.length];
+    private final long[] counts = new long[STATUSES.length];
+    private long openLoans;
+
+    public AvailabilityIndex(DeviceRepository deviceRepository, LoanRepository loanRepository,
+                             TransactionTemplate transactionTemplate) {
+        this.deviceRepository = deviceRepository;
+        this.loanRepository = loanRepository;
+        this.transactionTemplate = transactionTemplate;
+        for (int i = 0; i < devicesByStatus.length; i++) {
+            devicesByStatus[i] = new BitSet();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Replaces the whole index with the current database state.
+     */
+    public void rebuild() {
+        long stamp = lock.writeLock();
+        try {
+            loanByDevice.clear();
+            versionByDevice.clear();
+            for (BitSet devices : devicesByStatus) {
+                devices.clear();
+            }
+            Arrays.fill(counts, 0);
+            openLoans = 0;
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = deviceRepository.streamIdStatusAndVersion()) {
+                    rows.forEach(row -> applyStatus((Long) row[0], (DeviceStatus) row[1], (Long) row[2]));
+                }
+                try (Stream<Object[]> rows = loanRepository.streamOpenDeviceAndLoanIds()) {
+                    rows.filter(row -> row[0] != null)
+                            .forEach(row -> openLoan((Long) row[0], (Long) row[1]));
+                }
+            });
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean hasOpenLoan(long deviceId) {
+        long stamp = lock.readLock();
+        try {
+            return loanByDevice.get(deviceId, NO_LOAN) > 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the device's last known status, or {@code null} if the index has not seen it.
+     */
+    public DeviceStatus statusOf(long deviceId) {
+        if (!indexable(deviceId)) {
+            return null;
+        }
+        long stamp = lock.readLock();
+        try {
+            return statusOfLocked((int) deviceId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * True when the device's last known status is one the conditional AVAILABLE to LOANED update
+     * would reject: loaned, in maintenance or retired. An open loan alone does not count, since
+     * an operator may have set the device back to AVAILABLE.
+     */
+    public boolean isKnownUnavailable(long deviceId) {
+        if (!indexable(deviceId)) {
+            return false;
+        }
+        long stamp = lock.readLock();
+        try {
+            DeviceStatus status = statusOfLocked((int) deviceId);
+            return status != null && status != DeviceStatus.AVAILABLE;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long count(DeviceStatus status) {
+        long stamp = lock.readLock();
+        try {
+            return counts[status.ordinal()];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long openLoanCount() {
+        long stamp = lock.readLock();
+        try {
+            return openLoans;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (event.deviceId() == null) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (event.isDeleted()) {
+                if (loanByDevice.get(event.deviceId(), NO_LOAN) > 0) {
+                    openLoans--;
+                }
+                loanByDevice.remove(event.deviceId());
+                applyStatus(event.deviceId(), null, DELETED);
+            } else {
+                applyStatus(event.deviceId(), event.status(), event.version());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.deviceId() == null || event.loanId() == null) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (event.returned()) {
+                closeLoan(event.deviceId(), event.loanId());
+            } else {
+                openLoan(event.deviceId(), event.loanId());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void openLoan(long deviceId, long loanId) {
+        long current = loanByDevice.get(deviceId, NO_LOAN);
+        if (loanId > Math.abs(current)) {
+            if (current <= 0) {
+                openLoans++;
+            }
+            loanByDevice.put(deviceId, loanId);
+        }
+    }
+
+    private void closeLoan(long deviceId, long loanId) {
+        long current = loanByDevice.get(deviceId, NO_LOAN);
+        if (loanId >= Math.abs(current)) {
+            if (current > 0) {
+                openLoans--;
+            }
+            loanByDevice.put(deviceId, -loanId);
+        }
+    }
+
+    private void applyStatus(long deviceId, DeviceStatus status, long version) {
+        long current = versionByDevice.get(deviceId, NO_VERSION);
+        if (version < current || current == DELETED) {
+            return;
+        }
+        versionByDevice.put(deviceId, version);
+        setStatus(deviceId, status);
+    }
+
+    // Clears the device from every bitmap and sets it in the one for status; null only clears
+    private void setStatus(Long deviceId, DeviceStatus status) {
+        if (deviceId == null || !indexable(deviceId)) {
+            return;
+        }
+        int bit = (int) (long) deviceId;
+        for (int i = 0; i < devicesByStatus.length; i++) {
+            BitSet devices = devicesByStatus[i];
+            if (devices.get(bit)) {
+                devices.clear(bit);
+                counts[i]--;
+            }
+        }
+        if (status != null) {
+            devicesByStatus[status.ordinal()].set(bit);
+            counts[status.ordinal()]++;
+        }
+    }
+
+    private DeviceStatus statusOfLocked(int bit) {
+        for (DeviceStatus status : STATUSES) {
+            if (devicesByStatus[status.ordinal()].get(bit)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    // Bitmaps are indexed by int; ids outside that range are simply not tracked
+    private static boolean indexable(long deviceId) {
+        return deviceId >= 0 && deviceId <= Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,50 @@
+package edu.unac.service;
+
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.LoanChangedEvent;
+import edu.unac.event.LoansArchivedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters for the device and loan tables, used as weak ETags.
+ * Counters move only after the write has committed, and callers read the tag before they read
+ * the data, so a response can be tagged older than its content but never newer.
+ * The startup time is part of every tag so a restart never re-issues a tag for different data.
+ */
+@Component
+public class ChangeVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong devices = new AtomicLong();
+    private final AtomicLong loans = new AtomicLong();
+
+    public String deviceTag() {
+        return tag("d", devices.get());
+    }
+
+    public String loanTag() {
+        return tag("l", loans.get());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        devices.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        loans.incrementAndGet();
+    }
+
+    // Archived loans leave the active listing even though the loans themselves did not change
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoansArchived(LoansArchivedEvent event) {
+        loans.incrementAndGet();
+    }
+
+    private String tag(String table, long version) {
+        return "W/\"" + table + epoch + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,66 @@
+package edu.unac.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.unac.domain.Device;
+import edu.unac.dto.CacheStats;
+import edu.unac.event.DeviceChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting read-through cache for single-device lookups.
+ * Entries are dropped once the transaction that changed the device has committed.
+ */
+@Component
+public class DeviceCache implements MeterBinder {
+    private final Cache<Long, Device> cache;
+
+    public DeviceCache(@Value("${inventory.device-cache.maximum-size:10000}") long maximumSize,
+                       @Value("${inventory.device-cache.ttl:30s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Device> get(Long id, Function<Long, Optional<Device>> loader) {
+        // Concurrent misses for the same id share one load, and an invalidation that races
+        // with a load waits for it, so a stale row can never be cached after its write commits
+        Device cached = cache.get(id, key -> loader.apply(key).map(DeviceCache::copy).orElse(null));
+        return Optional.ofNullable(cached).map(DeviceCache::copy);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        invalidate(event.deviceId());
+    }
+
+    public CacheStats stats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = cache.stats();
+        return new CacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "devices");
+    }
+
+    private static Device copy(Device device) {
+        return new Device(device.getId(), device.getName(), device.getType(), device.getLocation(),
+                device.getStatus(), device.getAddedDate(), device.getVersion());
+    }
+}
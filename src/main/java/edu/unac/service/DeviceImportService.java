@@ -0,0 +1,420 @@
+package edu.unac.service;
+
+import edu.unac.domain.Device;
+import edu.unac.dto.BatchItemResult;
+import edu.unac.dto.BatchResult;
+import edu.unac.dto.DeviceImportStatus;
+import edu.unac.dto.DeviceImportStatus.State;
+import edu.unac.dto.ImportRowError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports devices from CSV files in the background. The file is read one line at a time and
+ * every {@code batch-size} rows go through {@link DeviceService#registerDevices}, one
+ * transaction per batch, so rows that break the registration rules are reported by line and
+ * the rest still land. Values longer than their column are rejected before the batch is sent,
+ * and a batch the database still refuses is retried row by row to find the offending lines.
+ * Jobs run one at a time and are forgotten {@code retention} after they end.
+ * <p>
+ * The file needs a header row naming the columns; {@code name} is required, {@code type} and
+ * {@code location} are optional and other columns are ignored. Fields may be quoted with
+ * {@code "}, doubling quotes inside them, and quoted fields may span lines. Errors are reported
+ * against the line a record starts on.
+ */
+@Service
+public class DeviceImportService implements DisposableBean {
+    // Device name, type and location are VARCHAR(255)
+    static final int MAX_COLUMN_LENGTH = 255;
+    // How far a quoted field may run on before its opening quote is treated as a stray one
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+    private static final Logger log = LoggerFactory.getLogger(DeviceImportService.class);
+
+    private final DeviceService deviceService;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final Duration retention;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("device-import").daemon().factory());
+
+    public DeviceImportService(DeviceService deviceService,
+                               @Value("${inventory.device-import.batch-size:1000}") int batchSize,
+                               @Value("${inventory.device-import.max-reported-errors:1000}") int maxReportedErrors,
+                               @Value("${inventory.device-import.retention:1h}") Duration retention) {
+        if (batchSize < 1 || batchSize > DeviceService.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Import batch size must be between 1 and " + DeviceService.MAX_BATCH_SIZE);
+        }
+        this.deviceService = deviceService;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.retention = retention;
+    }
+
+    /**
+     * Queues the import of {@code csv}, which is deleted once the job ends.
+     */
+    public DeviceImportStatus start(Path csv, String filename) throws IOException {
+        forgetExpiredJobs();
+        Job job = new Job(UUID.randomUUID().toString(), filename, Files.size(csv));
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job, csv));
+        return job.snapshot();
+    }
+
+    public Optional<DeviceImportStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void forgetExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt < cutoff);
+    }
+
+    private void run(Job job, Path csv) {
+        job.startedAt = System.currentTimeMillis();
+        job.state = State.RUNNING;
+        State outcome = State.FAILED;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new CountingInputStream(Files.newInputStream(csv), job.bytesRead), StandardCharsets.UTF_8))) {
+            importRows(job, reader);
+            outcome = State.COMPLETED;
+        } catch (Exception e) {
+            log.warn("Device import {} failed after {} rows", job.id, job.rowsRead.get(), e);
+            job.error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        } finally {
+            try {
+                Files.deleteIfExists(csv);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", csv, e);
+            }
+            // Published last, so a finished job never shows without its end time or with its file left
+            job.finishedAt = System.currentTimeMillis();
+            job.state = outcome;
+        }
+    }
+
+    private void importRows(Job job, BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        List<String> columns = parseLine(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        if (columns == null) {
+            throw new IllegalArgumentException("CSV header has an unterminated quoted field");
+        }
+        int nameColumn = indexOf(columns, "name");
+        int typeColumn = indexOf(columns, "type");
+        int locationColumn = indexOf(columns, "location");
+        if (nameColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain a name column");
+        }
+
+        List<Device> batch = new ArrayList<>(batchSize);
+        long[] batchLines = new long[batchSize];
+        long line = 1;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            job.rowsRead.incrementAndGet();
+            long firstLine = line;
+            List<String> fields;
+            try {
+                fields = parseLine(text);
+                if (fields == null) {
+                    Record record = continueRecord(reader, text);
+                    line += record.extraLines();
+                    fields = record.fields();
+                }
+            } catch (MalformedRecordException e) {
+                line += e.extraLines;
+                job.rowFailed(firstLine, e.getMessage(), maxReportedErrors);
+                continue;
+            } catch (IllegalArgumentException e) {
+                job.rowFailed(firstLine, e.getMessage(), maxReportedErrors);
+                continue;
+            }
+            Device device = new Device();
+            device.setName(field(fields, nameColumn));
+            device.setType(field(fields, typeColumn));
+            device.setLocation(field(fields, locationColumn));
+            String tooLong = tooLongColumn(device);
+            if (tooLong != null) {
+                job.rowFailed(firstLine, tooLong + " must be at most " + MAX_COLUMN_LENGTH + " characters",
+                        maxReportedErrors);
+                continue;
+            }
+            batchLines[batch.size()] = firstLine;
+            batch.add(device);
+            if (batch.size() == batchSize) {
+                flush(job, batch, batchLines);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(job, batch, batchLines);
+        }
+    }
+
+    private void flush(Job job, List<Device> batch, long[] batchLines) {
+        try {
+            count(job, deviceService.registerDevices(batch), batchLines, 0);
+        } catch (DataIntegrityViolationException e) {
+            // The whole batch rolled back; one transaction per row tells the bad rows from the good
+            log.debug("Device import {} batch rejected, retrying row by row", job.id, e);
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    count(job, deviceService.registerDevices(List.of(copyOf(batch.get(i)))), batchLines, i);
+                } catch (DataIntegrityViolationException rowError) {
+                    job.rowFailed(batchLines[i], "Rejected by the database: "
+                            + rowError.getMostSpecificCause().getMessage(), maxReportedErrors);
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private void count(Job job, BatchResult result, long[] batchLines, int offset) {
+        for (BatchItemResult item : result.items()) {
+            if (item.error() != null) {
+                job.rowFailed(batchLines[offset + item.index()], item.error(), maxReportedErrors);
+            }
+        }
+        job.imported.addAndGet(result.created());
+    }
+
+    // The rolled-back attempt left ids and versions on the originals, which would make them look persisted
+    private static Device copyOf(Device device) {
+        Device copy = new Device();
+        copy.setName(device.getName());
+        copy.setType(device.getType());
+        copy.setLocation(device.getLocation());
+        return copy;
+    }
+
+    private static String tooLongColumn(Device device) {
+        if (device.getName() != null && device.getName().length() > MAX_COLUMN_LENGTH) {
+            return "name";
+        }
+        if (device.getType() != null && device.getType().length() > MAX_COLUMN_LENGTH) {
+            return "type";
+        }
+        if (device.getLocation() != null && device.getLocation().length() > MAX_COLUMN_LENGTH) {
+            return "location";
+        }
+        return null;
+    }
+
+    /**
+     * Reads the lines a quoted field opened on {@code first} runs on to. When the field does not
+     * close within {@link #MAX_RECORD_LENGTH}, or the completed record is malformed, the reader
+     * is rewound to the line after {@code first}, so a stray quote costs a single row.
+     */
+    private static Record continueRecord(BufferedReader reader, String first) throws IOException {
+        reader.mark(MAX_RECORD_LENGTH);
+        StringBuilder text = new StringBuilder(first);
+        int extraLines = 0;
+        String next;
+        List<String> fields = null;
+        String error = "Unterminated quoted field";
+        while (fields == null && text.length() <= MAX_RECORD_LENGTH && (next = reader.readLine()) != null) {
+            extraLines++;
+            try {
+                fields = parseLine(text.append('\n').append(next).toString());
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+                break;
+            }
+        }
+        if (fields != null) {
+            return new Record(fields, extraLines);
+        }
+        try {
+            reader.reset();
+            extraLines = 0;
+        } catch (IOException e) {
+            // A single line longer than the mark limit invalidated it; those lines are gone
+            error += " (" + extraLines + " following lines skipped)";
+        }
+        throw new MalformedRecordException(error, extraLines);
+    }
+
+    private static int indexOf(List<String> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (column != null && column.toLowerCase(Locale.ROOT).equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < 0 || column >= fields.size() ? null : fields.get(column);
+    }
+
+    /**
+     * Splits one CSV record into fields. Unquoted fields are trimmed and empty ones become
+     * {@code null}; quoted fields are kept as written. Returns {@code null} when the text ends
+     * inside a quoted field, which then continues on the next line.
+     */
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            while (i < line.length() && line.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < line.length() && line.charAt(i) == '"') {
+                field.setLength(0);
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < line.length() && line.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after quoted field");
+                }
+                fields.add(field.toString());
+            } else {
+                int end = line.indexOf(',', i);
+                String value = line.substring(i, end < 0 ? line.length() : end).trim();
+                fields.add(value.isEmpty() ? null : value);
+                i = end < 0 ? line.length() : end;
+            }
+            if (i >= line.length()) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private record Record(List<String> fields, int extraLines) {
+    }
+
+    private static final class MalformedRecordException extends IllegalArgumentException {
+        private final int extraLines;
+
+        MalformedRecordException(String message, int extraLines) {
+            super(message);
+            this.extraLines = extraLines;
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String filename;
+        private final long bytesTotal;
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private volatile State state = State.QUEUED;
+        private volatile Long startedAt;
+        private volatile Long finishedAt;
+        private volatile String error;
+
+        Job(String id, String filename, long bytesTotal) {
+            this.id = id;
+            this.filename = filename;
+            this.bytesTotal = bytesTotal;
+        }
+
+        void rowFailed(long line, String message, int maxReportedErrors) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new ImportRowError(line, message));
+                }
+            }
+        }
+
+        DeviceImportStatus snapshot() {
+            Long started = startedAt;
+            Long finished = finishedAt;
+            long rows = rowsRead.get();
+            long elapsed = started == null ? 0 : (finished == null ? System.currentTimeMillis() : finished) - started;
+            List<ImportRowError> reported;
+            synchronized (errors) {
+                reported = List.copyOf(errors);
+            }
+            return new DeviceImportStatus(id, state, filename, bytesTotal, bytesRead.get(), rows, imported.get(),
+                    failed.get(), elapsed == 0 ? 0 : rows * 1000.0 / elapsed, started, finished, error,
+                    reported, failed.get() > reported.size());
+        }
+    }
+
+    // Counts bytes as the reader pulls them, which is the import's progress through the file
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
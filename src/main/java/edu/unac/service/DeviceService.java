@@ -2,51 +2,187 @@ package edu.unac.service;
 
 import edu.unac.domain.Device;
 import edu.unac.domain.DeviceStatus;
+import edu.unac.dto.BatchItemResult;
+import edu.unac.dto.BatchResult;
+import edu.unac.dto.CacheStats;
+import edu.unac.dto.DeviceFilter;
+import edu.unac.dto.DevicePage;
+import edu.unac.dto.DeviceStats;
+import edu.unac.dto.DeviceView;
+import edu.unac.dto.GroupCount;
+import edu.unac.dto.StatusCount;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.DeviceRegisteredEvent;
 import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.DeviceSpecifications;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class DeviceService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final String UNSPECIFIED = "unspecified";
 
     private final DeviceRepository deviceRepository;
+    private final DeviceCache deviceCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AvailabilityIndex availabilityIndex;
 
-    public DeviceService(DeviceRepository deviceRepository) {
+    public DeviceService(DeviceRepository deviceRepository, DeviceCache deviceCache,
+                         ApplicationEventPublisher eventPublisher, AvailabilityIndex availabilityIndex) {
         this.deviceRepository = deviceRepository;
+        this.deviceCache = deviceCache;
+        this.eventPublisher = eventPublisher;
+        this.availabilityIndex = availabilityIndex;
     }
 
+    @Transactional
     public Device registerDevice(Device device) {
-        if (device.getName() == null || device.getName().length() < 3) {
+        prepareNewDevice(device, System.currentTimeMillis());
+        Device saved = deviceRepository.save(device);
+        publishRegistered(saved);
+        return saved;
+    }
+
+    /**
+     * Registers every valid device in one transaction so the inserts go out as JDBC batches.
+     * Invalid entries are reported per index and do not prevent the others from being saved.
+     */
+    @Transactional
+    public BatchResult registerDevices(List<Device> devices) {
+        if (devices == null || devices.isEmpty() || devices.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " devices");
+        }
+
+        long now = System.currentTimeMillis();
+        List<Device> valid = new ArrayList<>(devices.size());
+        BatchItemResult[] results = new BatchItemResult[devices.size()];
+        for (int i = 0; i < devices.size(); i++) {
+            Device device = devices.get(i);
+            try {
+                prepareNewDevice(device, now);
+                valid.add(device);
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchItemResult.failed(i, e.getMessage());
+            }
+        }
+
+        deviceRepository.saveAll(valid);
+        valid.forEach(this::publishRegistered);
+
+        for (int i = 0; i < devices.size(); i++) {
+            if (results[i] == null) {
+                results[i] = BatchItemResult.created(i, devices.get(i).getId());
+            }
+        }
+        return new BatchResult(valid.size(), devices.size() - valid.size(), List.of(results));
+    }
+
+    private void publishRegistered(Device device) {
+        eventPublisher.publishEvent(DeviceRegisteredEvent.of(device));
+        eventPublisher.publishEvent(new DeviceChangedEvent(device.getId(), device.getStatus(), device.getVersion()));
+    }
+
+    private void prepareNewDevice(Device device, long addedDate) {
+        if (device == null || device.getName() == null || device.getName().length() < 3) {
             throw new IllegalArgumentException("Device name must be at least 3 characters long");
         }
 
         device.setStatus(DeviceStatus.AVAILABLE);
-        device.setAddedDate(System.currentTimeMillis());
+        device.setAddedDate(addedDate);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DeviceView> getAllDevices() {
+        return deviceRepository.findAllViews();
+    }
 
-        return deviceRepository.save(device);
+    @Transactional(readOnly = true)
+    public DevicePage getDevicesPage(Long after, int limit) {
+        return getDevicesPage(DeviceFilter.NONE, after, limit);
     }
 
-    public List<Device> getAllDevices() {
-        return deviceRepository.findAll();
+    @Transactional(readOnly = true)
+    public DevicePage getDevicesPage(DeviceFilter filter, Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (filter.namePrefix() != null && filter.namePrefix().isEmpty()) {
+            throw new IllegalArgumentException("Name prefix must not be empty");
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<DeviceView> rows = deviceRepository.findViews(DeviceSpecifications.matching(filter, after), limit + 1);
+        if (rows.size() <= limit) {
+            return new DevicePage(rows, null);
+        }
+        List<DeviceView> items = rows.subList(0, limit);
+        return new DevicePage(items, items.get(limit - 1).id());
     }
 
+    @Transactional(readOnly = true)
+    public DeviceStats getDeviceStats() {
+        Map<DeviceStatus, Long> byStatus = new EnumMap<>(DeviceStatus.class);
+        for (DeviceStatus status : DeviceStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        for (StatusCount count : deviceRepository.countGroupedByStatus()) {
+            if (count.status() != null) {
+                byStatus.put(count.status(), count.count());
+            }
+        }
+
+        Map<String, Long> byType = toMap(deviceRepository.countGroupedByType());
+        long total = byType.values().stream().mapToLong(Long::longValue).sum();
+        return new DeviceStats(total, byStatus, byType, toMap(deviceRepository.countGroupedByLocation()));
+    }
+
+    private static Map<String, Long> toMap(List<GroupCount> counts) {
+        Map<String, Long> map = new TreeMap<>();
+        for (GroupCount count : counts) {
+            map.merge(count.key() == null ? UNSPECIFIED : count.key(), count.count(), Long::sum);
+        }
+        return map;
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Device> getDeviceById(Long id) {
-        return deviceRepository.findById(id);
+        return deviceCache.get(id, deviceRepository::findById);
     }
 
+    public CacheStats getCacheStats() {
+        return deviceCache.stats();
+    }
+
+    @Transactional
     public Device updateDeviceStatus(Long id, DeviceStatus newStatus) {
-        return deviceRepository.findById(id).map(device -> {
-            device.setStatus(newStatus);
-            return deviceRepository.save(device);
-        }).orElseThrow(() -> new IllegalArgumentException("Device not found"));
+        // A single UPDATE bumps the version under the row lock; reading the device back afterwards
+        // returns it with the version the event has to carry
+        if (deviceRepository.updateStatus(id, newStatus) == 0) {
+            throw new IllegalArgumentException("Device not found");
+        }
+        Device updated = deviceRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Device not found"));
+        eventPublisher.publishEvent(new DeviceChangedEvent(id, newStatus, updated.getVersion()));
+        return updated;
     }
 
+    @Transactional
     public void deleteDevice(Long id) {
-        if (deviceRepository.existsLoanByDeviceId(id)) {
+        if (availabilityIndex.hasOpenLoan(id) || deviceRepository.existsLoanByDeviceId(id)) {
             throw new IllegalStateException("Cannot delete device with loan history");
         }
         deviceRepository.deleteById(id);
+        eventPublisher.publishEvent(DeviceChangedEvent.deleted(id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package edu.unac.service;
+
+import edu.unac.domain.Device;
+import edu.unac.dto.LoanGroupAnalytics;
+import edu.unac.dto.LoanGroupTotals;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.DeviceRegisteredEvent;
+import edu.unac.event.LoanChangedEvent;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanHistoryRepository;
+import edu.unac.repository.LoanRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Running loan totals per device type and location, so duration and utilization reports cost
+ * one pass over the groups instead of a pass over every loan.
+ * <p>
+ * Totals are kept per (type, location) pair and folded into either dimension when read. They are
+ * computed from the loan, history and device tables at startup and by {@link #rebuild()}, and then
+ * advanced by committed {@link LoanChangedEvent}s, {@link DeviceRegisteredEvent}s and device
+ * deletions. Open loans are remembered with their start date so a return can add its duration
+ * without reading the loan back, and each device with its group so a deletion can be counted
+ * and a checkout grouped without a lookup.
+ * <p>
+ * A return whose checkout has not been seen yet is held for at most {@link #EARLY_RETURN_TTL}
+ * milliseconds of event time and {@link #EARLY_RETURN_LIMIT} entries; a return that outlives
+ * both is dropped and its loan stays out until the next rebuild.
+ */
+@Component
+public class LoanAnalytics implements SmartInitializingSingleton {
+
+    public enum Dimension {
+        TYPE,
+        LOCATION
+    }
+
+    static final long EARLY_RETURN_TTL = 60_000;
+    static final int EARLY_RETURN_LIMIT = 10_000;
+
+    private final LoanRepository loanRepository;
+    private final LoanHistoryRepository loanHistoryRepository;
+    private final DeviceRepository deviceRepository;
+    private final DeviceCache deviceCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object lock = new Object();
+    private final Map<Group, Totals> totals = new HashMap<>();
+    private final Map<Long, OpenLoan> openLoans = new HashMap<>();
+    private final Map<Long, Group> deviceGroups = new HashMap<>();
+    // Returns whose listener ran before the listener of the matching checkout, oldest first
+    private final Map<Long, Long> earlyReturns = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > EARLY_RETURN_LIMIT;
+        }
+    };
+
+    public LoanAnalytics(LoanRepository loanRepository, LoanHistoryRepository loanHistoryRepository,
+                         DeviceRepository deviceRepository, DeviceCache deviceCache,
+                         TransactionTemplate transactionTemplate) {
+        this.loanRepository = loanRepository;
+        this.loanHistoryRepository = loanHistoryRepository;
+        this.deviceRepository = deviceRepository;
+        this.deviceCache = deviceCache;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Replaces all totals with ones computed from the loan, history and device tables.
+     */
+    public void rebuild() {
+        synchronized (lock) {
+            totals.clear();
+            openLoans.clear();
+            deviceGroups.clear();
+            earlyReturns.clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = deviceRepository.streamIdTypeAndLocation()) {
+                    rows.forEach(row -> addDevice((Long) row[0], Group.of((String) row[1], (String) row[2])));
+                }
+                loanRepository.computeGroupTotals().forEach(this::add);
+                loanHistoryRepository.computeGroupTotals().forEach(this::add);
+                try (Stream<Object[]> rows = loanRepository.streamOpenLoanGroups()) {
+                    rows.forEach(row -> openLoans.put((Long) row[0],
+                            new OpenLoan(Group.of((String) row[2], (String) row[3]), (Long) row[1])));
+                }
+            });
+        }
+    }
+
+    /**
+     * One entry per type or location that has loans, ordered by key, with the number of devices
+     * currently in it.
+     */
+    public List<LoanGroupAnalytics> byDimension(Dimension dimension) {
+        Map<String, Totals> folded = new TreeMap<>();
+        synchronized (lock) {
+            totals.forEach((group, groupTotals) -> folded
+                    .computeIfAbsent(group.key(dimension), key -> new Totals())
+                    .merge(groupTotals));
+        }
+
+        List<LoanGroupAnalytics> result = new ArrayList<>(folded.size());
+        folded.forEach((key, groupTotals) -> {
+            if (groupTotals.loans == 0) {
+                return;
+            }
+            long deviceCount = groupTotals.devices;
+            long returned = groupTotals.loans - groupTotals.out;
+            result.add(new LoanGroupAnalytics(key, deviceCount, groupTotals.loans, groupTotals.out, returned,
+                    returned == 0 ? 0 : (double) groupTotals.totalDuration / returned,
+                    groupTotals.maxDuration,
+                    deviceCount == 0 ? 0 : (double) groupTotals.out / deviceCount));
+        });
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        synchronized (lock) {
+            addDevice(event.deviceId(), Group.of(event.type(), event.location()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (!event.isDeleted()) {
+            return;
+        }
+        synchronized (lock) {
+            Group group = deviceGroups.remove(event.deviceId());
+            if (group != null) {
+                totals.get(group).devices--;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (event.loanId() == null) {
+            return;
+        }
+        if (event.returned()) {
+            synchronized (lock) {
+                OpenLoan open = openLoans.remove(event.loanId());
+                if (open == null) {
+                    holdEarlyReturn(event.loanId(), event.timestamp());
+                } else {
+                    totals.get(open.group()).returned(event.timestamp() - open.startDate());
+                }
+            }
+            return;
+        }
+
+        Group group;
+        synchronized (lock) {
+            group = deviceGroups.get(event.deviceId());
+        }
+        if (group == null) {
+            // Only a checkout whose device registration has not been delivered yet gets here; the
+            // lookup usually hits the cache and is done outside the lock
+            Optional<Device> device = event.deviceId() == null
+                    ? Optional.empty()
+                    : deviceCache.get(event.deviceId(), deviceRepository::findById);
+            group = device.map(found -> Group.of(found.getType(), found.getLocation()))
+                    .orElse(Group.UNKNOWN);
+        }
+        synchronized (lock) {
+            if (openLoans.containsKey(event.loanId())) {
+                return;
+            }
+            Totals groupTotals = totals.computeIfAbsent(group, key -> new Totals());
+            groupTotals.loans++;
+            groupTotals.out++;
+            Long endDate = earlyReturns.remove(event.loanId());
+            if (endDate == null) {
+                openLoans.put(event.loanId(), new OpenLoan(group, event.timestamp()));
+            } else {
+                groupTotals.returned(endDate - event.timestamp());
+            }
+        }
+    }
+
+    int pendingEarlyReturns() {
+        synchronized (lock) {
+            return earlyReturns.size();
+        }
+    }
+
+    private void holdEarlyReturn(Long loanId, long endDate) {
+        earlyReturns.put(loanId, endDate);
+        Iterator<Long> endDates = earlyReturns.values().iterator();
+        while (endDates.hasNext() && endDates.next() < endDate - EARLY_RETURN_TTL) {
+            endDates.remove();
+        }
+    }
+
+    private void addDevice(Long deviceId, Group group) {
+        if (deviceId == null || deviceGroups.putIfAbsent(deviceId, group) != null) {
+            return;
+        }
+        totals.computeIfAbsent(group, key -> new Totals()).devices++;
+    }
+
+    private void add(LoanGroupTotals row) {
+        Totals groupTotals = totals.computeIfAbsent(Group.of(row.type(), row.location()), key -> new Totals());
+        groupTotals.loans += row.loans();
+        groupTotals.out += row.out();
+        groupTotals.totalDuration += row.totalDuration();
+        groupTotals.maxDuration = Math.max(groupTotals.maxDuration, row.maxDuration());
+    }
+
+    private record Group(String type, String location) {
+        static final Group UNKNOWN = of(null, null);
+
+        static Group of(String type, String location) {
+            return new Group(keyOf(type), keyOf(location));
+        }
+
+        static String keyOf(String value) {
+            return value == null ? DeviceService.UNSPECIFIED : value;
+        }
+
+        String key(Dimension dimension) {
+            return dimension == Dimension.TYPE ? type : location;
+        }
+    }
+
+    private record OpenLoan(Group group, long startDate) {
+    }
+
+    private static final class Totals {
+        private long devices;
+        private long loans;
+        private long out;
+        private long totalDuration;
+        private long maxDuration;
+
+        void returned(long duration) {
+            out--;
+            totalDuration += duration;
+            maxDuration = Math.max(maxDuration, duration);
+        }
+
+        void merge(Totals other) {
+            devices += other.devices;
+            loans += other.loans;
+            out += other.out;
+            totalDuration += other.totalDuration;
+            maxDuration = Math.max(maxDuration, other.maxDuration);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package edu.unac.service;
+
+import edu.unac.event.LoansArchivedEvent;
+import edu.unac.repository.LoanHistoryRepository;
+import edu.unac.repository.LoanRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Moves returned loans older than {@code inventory.loan-archive.min-age} from the active loan
+ * table to {@code loan_history}, so the active table and its indexes only hold open and recent
+ * loans. Each chunk is copied and deleted in its own short transaction to keep locks brief.
+ */
+@Component
+public class LoanArchiver {
+    private final LoanRepository loanRepository;
+    private final LoanHistoryRepository loanHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration minAge;
+    private final int batchSize;
+
+    public LoanArchiver(LoanRepository loanRepository, LoanHistoryRepository loanHistoryRepository,
+                        TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                        @Value("${inventory.loan-archive.min-age:30d}") Duration minAge,
+                        @Value("${inventory.loan-archive.batch-size:1000}") int batchSize) {
+        this.loanRepository = loanRepository;
+        this.loanHistoryRepository = loanHistoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${inventory.loan-archive.interval:PT1H}",
+            fixedDelayString = "${inventory.loan-archive.interval:PT1H}")
+    public void archiveScheduled() {
+        archiveReturnedBefore(System.currentTimeMillis() - minAge.toMillis());
+    }
+
+    /**
+     * Archives every returned loan that ended before {@code cutoff} and returns how many moved.
+     */
+    public int archiveReturnedBefore(long cutoff) {
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            archived += moved;
+        } while (moved == batchSize);
+        return archived;
+    }
+
+    private int archiveChunk(long cutoff) {
+        List<Long> ids = loanRepository.findReturnedIdsEndedBefore(cutoff, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        loanHistoryRepository.copyReturnedLoans(ids, System.currentTimeMillis());
+        loanRepository.deleteReturnedByIdIn(ids);
+        eventPublisher.publishEvent(new LoansArchivedEvent(ids));
+        return ids.size();
+    }
+}
@@ -1,73 +1,252 @@
 package edu.unac.service;
 
-import edu.unac.domain.Device;
 import edu.unac.domain.DeviceStatus;
 import edu.unac.domain.Loan;
+import edu.unac.domain.LoanHistory;
+import edu.unac.dto.LoanStats;
+import edu.unac.dto.LoanView;
+import edu.unac.dto.ReturnItemResult;
+import edu.unac.dto.ReturnItemResult.Outcome;
+import edu.unac.dto.ReturnResult;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.LoanChangedEvent;
 import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanHistoryRepository;
 import edu.unac.repository.LoanRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class LoanService {
+    public static final int MAX_RETURN_BATCH = 1000;
+
     @Autowired
     private LoanRepository loanRepository;
     @Autowired
+    private LoanHistoryRepository loanHistoryRepository;
+    @Autowired
     private DeviceRepository deviceRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public LoanService(LoanRepository loanRepository, DeviceRepository deviceRepository) {
+    public LoanService(LoanRepository loanRepository, LoanHistoryRepository loanHistoryRepository,
+                       DeviceRepository deviceRepository, ApplicationEventPublisher eventPublisher,
+                       AvailabilityIndex availabilityIndex) {
         this.loanRepository = loanRepository;
+        this.loanHistoryRepository = loanHistoryRepository;
         this.deviceRepository = deviceRepository;
+        this.eventPublisher = eventPublisher;
+        this.availabilityIndex = availabilityIndex;
     }
 
+    /**
+     * Flips the device from AVAILABLE to LOANED with a single conditional UPDATE and inserts the
+     * loan in the same transaction, so concurrent requests can never both loan the same device.
+     */
+    @Transactional
     public Loan registerLoan(Loan loan) {
-        Device device = deviceRepository.findById(loan.getDeviceId()).orElseThrow(() ->
-                new IllegalArgumentException("Device not found"));
+        Long deviceId = loan.getDeviceId();
+        if (deviceId == null) {
+            throw new IllegalArgumentException("Device not found");
+        }
+        // Devices known to be out are rejected from memory; everything else is decided by the UPDATE
+        if (availabilityIndex.isKnownUnavailable(deviceId)) {
+            throw new IllegalStateException("Device is not available for loan");
+        }
 
-        if (device.getStatus() != DeviceStatus.AVAILABLE) {
+        if (deviceRepository.compareAndSetStatus(deviceId, DeviceStatus.AVAILABLE, DeviceStatus.LOANED) == 0) {
+            // Only the failure path pays for the extra lookup that tells the two causes apart
+            if (!deviceRepository.existsById(deviceId)) {
+                throw new IllegalArgumentException("Device not found");
+            }
             throw new IllegalStateException("Device is not available for loan");
         }
 
+        long version = deviceRepository.findVersionById(deviceId);
         loan.setStartDate(System.currentTimeMillis());
         loan.setReturned(false);
 
-        device.setStatus(DeviceStatus.LOANED);
-        deviceRepository.save(device);
+        Loan saved = loanRepository.save(loan);
+        eventPublisher.publishEvent(new DeviceChangedEvent(deviceId, DeviceStatus.LOANED, version));
+        eventPublisher.publishEvent(new LoanChangedEvent(saved.getId(), deviceId, saved.getBorrowedBy(), false,
+                saved.getStartDate()));
+        return saved;
+    }
 
-        return loanRepository.save(loan);
+    @Transactional(readOnly = true)
+    public List<LoanView> getAllLoans() {
+        return loanRepository.findAllViews();
     }
 
-    public List<Loan> getAllLoans() {
-        return loanRepository.findAll();
+    /**
+     * Hands every loan to {@code sink} while reading them through database cursors: active loans
+     * in id order, then archived ones in id order. Each loan is detached once consumed so the
+     * persistence context stays flat for large tables. A loan archived while the export runs
+     * may be emitted twice, but never skipped.
+     */
+    @Transactional(readOnly = true)
+    public void exportLoans(Consumer<Loan> sink) {
+        try (Stream<Loan> loans = loanRepository.streamAllOrderById()) {
+            loans.forEach(loan -> {
+                sink.accept(loan);
+                entityManager.detach(loan);
+            });
+        }
+        try (Stream<LoanHistory> archived = loanHistoryRepository.streamAllOrderById()) {
+            archived.forEach(history -> {
+                sink.accept(history.toLoan());
+                entityManager.detach(history);
+            });
+        }
     }
 
+    @Transactional(readOnly = true)
+    public LoanStats getLoanStats() {
+        LoanStats active = loanRepository.computeStats();
+        long archived = loanHistoryRepository.count();
+        return new LoanStats(active.total() + archived, active.open(), active.returned() + archived);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Loan> getLoanById(Long id) {
-        return loanRepository.findById(id);
+        return loanRepository.findById(id)
+                .or(() -> loanHistoryRepository.findById(id).map(LoanHistory::toLoan));
     }
 
+    @Transactional
     public Loan markAsReturned(Long loanId) {
-        Loan loan = loanRepository.findById(loanId).orElseThrow(() ->
-                new IllegalArgumentException("Loan not found"));
+        Loan loan = loanRepository.findById(loanId).orElse(null);
+        if (loan == null) {
+            if (loanHistoryRepository.existsById(loanId)) {
+                throw new IllegalStateException("Loan is already marked as returned");
+            }
+            throw new IllegalArgumentException("Loan not found");
+        }
 
         if (loan.isReturned()) {
             throw new IllegalStateException("Loan is already marked as returned");
         }
 
+        long endDate = System.currentTimeMillis();
+        if (loanRepository.markReturnedIfOpen(loanId, endDate) == 0) {
+            throw new IllegalStateException("Loan is already marked as returned");
+        }
+        if (deviceRepository.updateStatus(loan.getDeviceId(), DeviceStatus.AVAILABLE) == 0) {
+            throw new IllegalArgumentException("Device not found");
+        }
+        long version = deviceRepository.findVersionById(loan.getDeviceId());
+
         loan.setReturned(true);
-        loan.setEndDate(System.currentTimeMillis());
+        loan.setEndDate(endDate);
+        eventPublisher.publishEvent(new DeviceChangedEvent(loan.getDeviceId(), DeviceStatus.AVAILABLE, version));
+        eventPublisher.publishEvent(new LoanChangedEvent(loanId, loan.getDeviceId(), loan.getBorrowedBy(), true, endDate));
+        return loan;
+    }
+
+    /**
+     * Returns many loans in one transaction: one locking IN query to classify the ids, then one
+     * UPDATE for the loans and one for their devices. Ids that are missing or already returned
+     * are reported per entry and do not stop the others.
+     */
+    @Transactional
+    public ReturnResult returnLoans(List<Long> loanIds) {
+        if (loanIds == null || loanIds.isEmpty() || loanIds.size() > MAX_RETURN_BATCH) {
+            throw new IllegalArgumentException("Batch must contain between 1 and " + MAX_RETURN_BATCH + " loan ids");
+        }
+        if (loanIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Loan id must not be null");
+        }
 
-        Device device = deviceRepository.findById(loan.getDeviceId()).orElseThrow(() ->
-                new IllegalArgumentException("Device not found"));
-        device.setStatus(DeviceStatus.AVAILABLE);
-        deviceRepository.save(device);
+        Map<Long, Loan> loans = new HashMap<>();
+        for (Loan loan : loanRepository.findAllByIdForUpdate(new HashSet<>(loanIds))) {
+            loans.put(loan.getId(), loan);
+        }
+        if (loans.size() < loanIds.size()) {
+            Set<Long> missing = new HashSet<>(loanIds);
+            missing.removeAll(loans.keySet());
+            for (LoanHistory history : loanHistoryRepository.findAllById(missing)) {
+                loans.put(history.getId(), history.toLoan());
+            }
+        }
+
+        List<ReturnItemResult> items = new ArrayList<>(loanIds.size());
+        Set<Long> toReturn = new HashSet<>();
+        List<Loan> returning = new ArrayList<>();
+        for (Long loanId : loanIds) {
+            Loan loan = loans.get(loanId);
+            if (loan == null) {
+                items.add(new ReturnItemResult(loanId, Outcome.NOT_FOUND));
+            } else if (loan.isReturned() || !toReturn.add(loanId)) {
+                // A repeated id counts as already returned by its first occurrence
+                items.add(new ReturnItemResult(loanId, Outcome.ALREADY_RETURNED));
+            } else {
+                items.add(new ReturnItemResult(loanId, Outcome.RETURNED));
+                returning.add(loan);
+            }
+        }
 
-        return loanRepository.save(loan);
+        if (!toReturn.isEmpty()) {
+            long endDate = System.currentTimeMillis();
+            loanRepository.markAllReturnedIfOpen(toReturn, endDate);
+            Set<Long> deviceIds = new HashSet<>();
+            for (Loan loan : returning) {
+                if (loan.getDeviceId() != null) {
+                    deviceIds.add(loan.getDeviceId());
+                }
+            }
+            if (!deviceIds.isEmpty()) {
+                deviceRepository.updateStatusByIdIn(deviceIds, DeviceStatus.AVAILABLE);
+                for (Object[] row : deviceRepository.findIdAndVersionByIdIn(deviceIds)) {
+                    eventPublisher.publishEvent(new DeviceChangedEvent((Long) row[0], DeviceStatus.AVAILABLE,
+                            (Long) row[1]));
+                }
+            }
+            for (Loan loan : returning) {
+                eventPublisher.publishEvent(new LoanChangedEvent(loan.getId(), loan.getDeviceId(),
+                        loan.getBorrowedBy(), true, endDate));
+            }
+        }
+        return new ReturnResult(toReturn.size(), loanIds.size() - toReturn.size(), items);
     }
 
-    public List<Loan> getLoansByDeviceId(Long deviceId) {
-        return loanRepository.findByDeviceId(deviceId);
+    @Transactional(readOnly = true)
+    public List<LoanView> getLoansByDeviceId(Long deviceId) {
+        // Active before archived: a loan archived in between is then seen twice and merged,
+        // whereas the opposite order could miss it in both tables
+        List<LoanView> loans = loanRepository.findViewsByDeviceId(deviceId);
+        List<LoanView> archived = loanHistoryRepository.findViewsByDeviceId(deviceId);
+        if (archived.isEmpty()) {
+            return loans;
+        }
+        List<LoanView> merged = new ArrayList<>(loans);
+        Set<Long> seen = new HashSet<>();
+        loans.forEach(loan -> seen.add(loan.id()));
+        for (LoanView history : archived) {
+            if (seen.add(history.id())) {
+                merged.add(history);
+            }
+        }
+        merged.sort(Comparator.comparing(LoanView::id));
+        return merged;
     }
 }
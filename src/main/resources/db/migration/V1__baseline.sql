@@ -0,0 +1,25 @@
+CREATE SEQUENCE device_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE device (
+    id         BIGINT       NOT NULL,
+    added_date BIGINT       NOT NULL,
+    location   VARCHAR(255),
+    name       VARCHAR(255),
+    status     TINYINT CHECK (status BETWEEN 0 AND 3),
+    type       VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_device_status ON device (status);
+
+CREATE TABLE loan (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    borrowed_by VARCHAR(255),
+    device_id   BIGINT,
+    end_date    BIGINT  NOT NULL,
+    returned    BOOLEAN NOT NULL,
+    start_date  BIGINT  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_loan_device_returned ON loan (device_id, returned);
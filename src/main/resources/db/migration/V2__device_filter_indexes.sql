@@ -0,0 +1,7 @@
+-- Equality filters combined with keyset pagination (WHERE col = ? AND id > ? ORDER BY id)
+DROP INDEX idx_device_status;
+CREATE INDEX idx_device_status_id ON device (status, id);
+CREATE INDEX idx_device_type_id ON device (type, id);
+CREATE INDEX idx_device_location_id ON device (location, id);
+-- Name prefix search (LIKE 'abc%')
+CREATE INDEX idx_device_name ON device (name);
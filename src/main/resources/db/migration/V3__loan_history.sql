@@ -0,0 +1,14 @@
+CREATE TABLE loan_history (
+    id            BIGINT NOT NULL,
+    archived_date BIGINT NOT NULL,
+    borrowed_by   VARCHAR(255),
+    device_id     BIGINT,
+    end_date      BIGINT NOT NULL,
+    start_date    BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_loan_history_device ON loan_history (device_id);
+
+-- Lets the archiver find old returned loans without scanning the active table
+CREATE INDEX idx_loan_returned_end ON loan (returned, end_date);
@@ -0,0 +1,2 @@
+-- Bumped by every status change; orders a device's journaled transitions by commit
+ALTER TABLE device ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,71 @@
+package edu.unac.config;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.Loan;
+import edu.unac.dto.DeviceView;
+import edu.unac.service.DeviceService;
+import edu.unac.service.LoanService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against two independent H2 databases standing in for a primary and its replica. The
+ * replica is migrated with Flyway and seeded with a row the primary does not have, so every
+ * read shows which of the two it was served from.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingPrimary;DB_CLOSE_DELAY=-1",
+        "inventory.datasource.replica.url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "inventory.datasource.replica.read-your-writes=0s"
+})
+class ReadReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routingReplica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Test
+    void readsGoToReplicaAndWritesToPrimary() {
+        new JdbcTemplate(replicaDataSource).update(
+                "INSERT INTO device (id, name, status, added_date) VALUES (900001, 'Replica only', 0, 0)");
+
+        Device device = new Device();
+        device.setName("Primary only");
+        Long deviceId = deviceService.registerDevice(device).getId();
+
+        List<String> names = deviceService.getAllDevices().stream().map(DeviceView::name).toList();
+        assertTrue(names.contains("Replica only"));
+        assertFalse(names.contains("Primary only"));
+        assertTrue(deviceService.getDeviceById(deviceId).isEmpty());
+
+        // The write path reads and writes the primary only, so it finds the device there
+        Loan loan = new Loan();
+        loan.setDeviceId(deviceId);
+        loan.setBorrowedBy("Alice");
+        Long loanId = loanService.registerLoan(loan).getId();
+        assertTrue(loanService.markAsReturned(loanId).isReturned());
+        assertTrue(loanService.getLoanById(loanId).isEmpty());
+    }
+}
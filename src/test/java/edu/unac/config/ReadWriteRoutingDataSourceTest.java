@@ -0,0 +1,60 @@
+package edu.unac.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReadWriteRoutingDataSourceTest {
+    private long now = 1_000_000_000L;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    private ReadWriteRoutingDataSource routing(Duration readYourWrites) {
+        return new ReadWriteRoutingDataSource(mock(DataSource.class), mock(DataSource.class), readYourWrites, () -> now);
+    }
+
+    private Object route(ReadWriteRoutingDataSource routing, boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        Object key = routing.determineCurrentLookupKey();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        clearSynchronization();
+        return key;
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        ReadWriteRoutingDataSource routing = routing(Duration.ZERO);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, route(routing, true));
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, route(routing, false));
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, route(routing, true));
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readsStayOnPrimaryWithinReadYourWritesWindow() {
+        ReadWriteRoutingDataSource routing = routing(Duration.ofSeconds(1));
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, route(routing, true));
+
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, route(routing, false));
+        now += Duration.ofMillis(999).toNanos();
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, route(routing, true));
+
+        now += Duration.ofMillis(2).toNanos();
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, route(routing, true));
+    }
+}
@@ -1,6 +1,9 @@
 package edu.unac.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import edu.unac.domain.Device;
 import edu.unac.domain.DeviceStatus;
 import edu.unac.domain.Loan;
@@ -11,15 +14,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -56,7 +67,50 @@ class DeviceControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").exists())
                 .andExpect(jsonPath("$.name", is("Smartphone")))
-                .andExpect(jsonPath("$.status", is(DeviceStatus.AVAILABLE.toString())));
+                .andExpect(jsonPath("$.status", is(DeviceStatus.AVAILABLE.toString())))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void testCreateDeviceIdempotentRetry() throws Exception {
+        Device device = new Device();
+        device.setName("Laptop");
+        device.setType("Electronics");
+        String body = objectMapper.writeValueAsString(device);
+
+        String first = mockMvc.perform(post("/api/devices")
+                        .header(IdempotencyStore.HEADER, "device-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/api/devices")
+                        .header(IdempotencyStore.HEADER, "device-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(content().json(first));
+
+        // Fields the create path assigns itself do not make a retry a different request
+        device.setAddedDate(42L);
+        device.setStatus(DeviceStatus.RETIRED);
+        mockMvc.perform(post("/api/devices")
+                        .header(IdempotencyStore.HEADER, "device-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(device)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"));
+
+        device.setName("Projector");
+        mockMvc.perform(post("/api/devices")
+                        .header(IdempotencyStore.HEADER, "device-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(device)))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(1, deviceRepository.count());
     }
 
     @Test
@@ -85,9 +139,53 @@ class DeviceControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void testRegisterDevicesBatch() throws Exception {
+        Device valid1 = new Device();
+        valid1.setName("Laptop");
+        valid1.setType("Electronics");
+        valid1.setLocation("Room 1");
+
+        Device invalid = new Device();
+        invalid.setName("AB");
+
+        Device valid2 = new Device();
+        valid2.setName("Projector");
+        valid2.setType("Office");
+        valid2.setLocation("Room 2");
+
+        mockMvc.perform(post("/api/devices/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(valid1, invalid, valid2))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.items[0].id").exists())
+                .andExpect(jsonPath("$.items[1].error", is("Device name must be at least 3 characters long")))
+                .andExpect(jsonPath("$.items[2].id").exists());
+
+        mockMvc.perform(get("/api/devices")
+                        .param("unpaged", "true"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", is(DeviceStatus.AVAILABLE.toString())));
+    }
+
+    @Test
+    void testRegisterDevicesBatchAllInvalid() throws Exception {
+        Device invalid = new Device();
+        invalid.setName("AB");
+
+        mockMvc.perform(post("/api/devices/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(invalid))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.failed", is(1)));
+    }
+
     @Test
     void testGetAllDevicesEmptyList() throws Exception {
         mockMvc.perform(get("/api/devices")
+                        .param("unpaged", "true")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
@@ -108,6 +206,7 @@ class DeviceControllerTest {
         deviceRepository.saveAll(List.of(device1, device2));
 
         mockMvc.perform(get("/api/devices")
+                        .param("unpaged", "true")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
@@ -115,6 +214,212 @@ class DeviceControllerTest {
                 .andExpect(jsonPath("$[1].name", is("Projector")));
     }
 
+    @Test
+    void testGetDevicesAsCborAndSmile() throws Exception {
+        Device device1 = new Device();
+        device1.setName("Laptop");
+        Device device2 = new Device();
+        device2.setName("Projector");
+        deviceRepository.saveAll(List.of(device1, device2));
+
+        byte[] cbor = mockMvc.perform(get("/api/devices").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode page = new CBORMapper().readTree(cbor);
+        assertEquals(2, page.get("items").size());
+        assertEquals("Laptop", page.get("items").get(0).get("name").asText());
+
+        byte[] smile = mockMvc.perform(get("/api/devices").param("unpaged", "true")
+                        .accept(new MediaType("application", "x-jackson-smile")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode devices = new SmileMapper().readTree(smile);
+        assertEquals(2, devices.size());
+        assertEquals("Projector", devices.get(1).get("name").asText());
+    }
+
+    @Test
+    void testImportDevicesFromCsv() throws Exception {
+        MockMultipartFile csv = new MockMultipartFile("file", "devices.csv", "text/csv",
+                "name,type,location\nLaptop,Electronics,Room 1\nAB,Office,Room 2\nProjector,Office,Room 3\n"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        String location = mockMvc.perform(multipart("/api/devices/import").file(csv))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.filename", is("devices.csv")))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        JsonNode status = objectMapper.readTree(mockMvc.perform(get(location)).andReturn().getResponse().getContentAsString());
+        for (int attempt = 0; attempt < 200 && !status.get("state").asText().matches("COMPLETED|FAILED"); attempt++) {
+            Thread.sleep(25);
+            status = objectMapper.readTree(mockMvc.perform(get(location)).andReturn().getResponse().getContentAsString());
+        }
+
+        assertEquals("COMPLETED", status.get("state").asText());
+        assertEquals(2, status.get("imported").asInt());
+        assertEquals(1, status.get("failed").asInt());
+        assertEquals(3, status.get("errors").get(0).get("line").asInt());
+        assertEquals(2, deviceRepository.count());
+
+        mockMvc.perform(get("/api/devices/import/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetAllDevicesConditional() throws Exception {
+        String etag = mockMvc.perform(get("/api/devices").param("unpaged", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/devices").param("unpaged", "true")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        Device device = new Device();
+        device.setName("Laptop");
+        mockMvc.perform(post("/api/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(device)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/devices").param("unpaged", "true")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void testGetDevicesPageWithCursor() throws Exception {
+        for (String name : List.of("Laptop", "Projector", "Monitor")) {
+            Device device = new Device();
+            device.setName(name);
+            device.setType("Electronics");
+            device.setLocation("Room 1");
+            deviceRepository.save(device);
+        }
+
+        String firstPage = mockMvc.perform(get("/api/devices")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name", is("Laptop")))
+                .andExpect(jsonPath("$.items[1].name", is("Projector")))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn().getResponse().getContentAsString();
+
+        Long cursor = objectMapper.readTree(firstPage).get("nextCursor").asLong();
+
+        mockMvc.perform(get("/api/devices")
+                        .param("limit", "2")
+                        .param("after", cursor.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Monitor")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void testGetDeviceStats() throws Exception {
+        Device laptop = new Device();
+        laptop.setName("Laptop");
+        laptop.setType("Electronics");
+        laptop.setLocation("Room 1");
+        laptop.setStatus(DeviceStatus.AVAILABLE);
+        deviceRepository.save(laptop);
+
+        Device projector = new Device();
+        projector.setName("Projector");
+        projector.setType("Electronics");
+        projector.setLocation("Room 2");
+        projector.setStatus(DeviceStatus.LOANED);
+        deviceRepository.save(projector);
+
+        Device chair = new Device();
+        chair.setName("Chair");
+        chair.setStatus(DeviceStatus.AVAILABLE);
+        deviceRepository.save(chair);
+
+        mockMvc.perform(get("/api/devices/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.byStatus.AVAILABLE", is(2)))
+                .andExpect(jsonPath("$.byStatus.LOANED", is(1)))
+                .andExpect(jsonPath("$.byStatus.MAINTENANCE", is(0)))
+                .andExpect(jsonPath("$.byType.Electronics", is(2)))
+                .andExpect(jsonPath("$.byType.unspecified", is(1)))
+                .andExpect(jsonPath("$.byLocation['Room 1']", is(1)))
+                .andExpect(jsonPath("$.byLocation['Room 2']", is(1)));
+    }
+
+    @Test
+    void testGetDevicesPageFiltered() throws Exception {
+        String[][] rows = {
+                {"Laptop Dell", "Laptop", "Building B", "AVAILABLE"},
+                {"Laptop HP", "Laptop", "Building B", "LOANED"},
+                {"Laptop Lenovo", "Laptop", "Building A", "AVAILABLE"},
+                {"Projector Epson", "Projector", "Building B", "AVAILABLE"},
+                {"Laptop Asus", "Laptop", "Building B", "AVAILABLE"}
+        };
+        for (String[] row : rows) {
+            Device device = new Device();
+            device.setName(row[0]);
+            device.setType(row[1]);
+            device.setLocation(row[2]);
+            device.setStatus(DeviceStatus.valueOf(row[3]));
+            deviceRepository.save(device);
+        }
+
+        String firstPage = mockMvc.perform(get("/api/devices")
+                        .param("status", "AVAILABLE")
+                        .param("type", "Laptop")
+                        .param("location", "Building B")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Laptop Dell")))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn().getResponse().getContentAsString();
+
+        Long cursor = objectMapper.readTree(firstPage).get("nextCursor").asLong();
+
+        mockMvc.perform(get("/api/devices")
+                        .param("status", "AVAILABLE")
+                        .param("type", "Laptop")
+                        .param("location", "Building B")
+                        .param("limit", "1")
+                        .param("after", cursor.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Laptop Asus")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/devices")
+                        .param("name", "Laptop L"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Laptop Lenovo")));
+    }
+
+    @Test
+    void testGetDevicesPageInvalidStatus() throws Exception {
+        mockMvc.perform(get("/api/devices")
+                        .param("status", "BROKEN"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetDevicesPageInvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/devices")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetDeviceByIdFound() throws Exception {
         Device device = new Device();
@@ -127,7 +432,8 @@ class DeviceControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(device.getId().intValue())))
-                .andExpect(jsonPath("$.name", is("Tablet")));
+                .andExpect(jsonPath("$.name", is("Tablet")))
+                .andExpect(jsonPath("$.version").doesNotExist());
     }
 
     @Test
@@ -154,6 +460,61 @@ class DeviceControllerTest {
                 .andExpect(jsonPath("$.status", is(DeviceStatus.MAINTENANCE.toString())));
     }
 
+    @Test
+    void testUpdateDeviceStatusRefreshesCachedDevice() throws Exception {
+        Device device = new Device();
+        device.setName("Router");
+        device.setType("Network");
+        device.setLocation("Rack 3");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        deviceRepository.save(device);
+
+        mockMvc.perform(get("/api/devices/{id}", device.getId()))
+                .andExpect(jsonPath("$.status", is(DeviceStatus.AVAILABLE.toString())));
+        mockMvc.perform(get("/api/devices/{id}", device.getId()))
+                .andExpect(jsonPath("$.status", is(DeviceStatus.AVAILABLE.toString())));
+
+        mockMvc.perform(put("/api/devices/{id}/status", device.getId())
+                        .param("status", DeviceStatus.RETIRED.toString()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/devices/{id}", device.getId()))
+                .andExpect(jsonPath("$.status", is(DeviceStatus.RETIRED.toString())));
+
+        mockMvc.perform(get("/api/devices/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").isNumber())
+                .andExpect(jsonPath("$.misses").isNumber())
+                .andExpect(jsonPath("$.evictions").isNumber());
+    }
+
+    @Test
+    void testDeviceEventsStreamStatusChanges() throws Exception {
+        Device device = new Device();
+        device.setName("Laptop");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device = deviceRepository.save(device);
+
+        MvcResult stream = mockMvc.perform(get("/api/devices/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(put("/api/devices/{id}/status", device.getId())
+                        .param("status", DeviceStatus.MAINTENANCE.toString()))
+                .andExpect(status().isOk());
+
+        String expected = "\"deviceId\":" + device.getId() + ",\"status\":\"MAINTENANCE\"";
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!stream.getResponse().getContentAsString().contains(expected)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        String body = stream.getResponse().getContentAsString();
+        assertTrue(body.contains("event:device"), body);
+        assertTrue(body.contains(expected), body);
+        stream.getRequest().getAsyncContext().complete();
+    }
+
     @Test
     void testUpdateDeviceStatusNotFound() throws Exception {
         mockMvc.perform(put("/api/devices/{id}/status", 999L)
@@ -0,0 +1,81 @@
+package edu.unac.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+    private final IdempotencyStore store = new IdempotencyStore(100, Duration.ofMinutes(1));
+
+    @Test
+    void concurrentRequestsWithSameKeyRunOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<ResponseEntity<String>> first = executor.submit(() -> store.execute("loans", "k", "body", () -> {
+                executions.incrementAndGet();
+                inFlight.countDown();
+                await(release);
+                return ResponseEntity.status(HttpStatus.CREATED).body("loan-1");
+            }));
+            inFlight.await();
+            Future<ResponseEntity<String>> retry = executor.submit(() -> store.execute("loans", "k", "body", () -> {
+                executions.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.CREATED).body("loan-2");
+            }));
+            release.countDown();
+
+            assertEquals("loan-1", first.get().getBody());
+            assertEquals("loan-1", retry.get().getBody());
+            assertEquals("true", retry.get().getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void fingerprintSeparatesFieldBoundariesAndNulls() {
+        assertEquals(IdempotencyStore.fingerprint(7L, "Alice"), IdempotencyStore.fingerprint(7L, "Alice"));
+        assertNotEquals(IdempotencyStore.fingerprint("ab", "c"), IdempotencyStore.fingerprint("a", "bc"));
+        assertNotEquals(IdempotencyStore.fingerprint(null, "x"), IdempotencyStore.fingerprint("null", "x"));
+        assertNotEquals(IdempotencyStore.fingerprint("", "x"), IdempotencyStore.fingerprint(null, "x"));
+    }
+
+    @Test
+    void failedAttemptReleasesKey() {
+        assertThrows(IllegalStateException.class, () -> store.execute("devices", "k", "body", () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        ResponseEntity<String> retry = store.execute("devices", "k", "body", () -> ResponseEntity.ok("created"));
+
+        assertEquals("created", retry.getBody());
+        assertNull(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void keysAreScopedAndValidated() {
+        store.execute("devices", "k", "body", () -> ResponseEntity.ok("device"));
+
+        assertEquals("loan", store.execute("loans", "k", "body", () -> ResponseEntity.ok("loan")).getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, store.execute("loans", " ", "body", () -> ResponseEntity.ok("x")).getStatusCode());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -7,13 +7,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import edu.unac.domain.DeviceStatus;
 import edu.unac.repository.DeviceRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 
@@ -21,6 +25,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -61,6 +67,69 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.returned", is(false)));
     }
 
+    @Test
+    void testRegisterLoanIdempotentRetry() throws Exception {
+        Device device = new Device();
+        device.setName("Laptop");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setAddedDate(System.currentTimeMillis());
+        device = deviceRepository.save(device);
+
+        Loan loan = new Loan();
+        loan.setDeviceId(device.getId());
+        loan.setBorrowedBy("Alice");
+        String body = objectMapper.writeValueAsString(loan);
+
+        String first = mockMvc.perform(post("/api/loans")
+                        .header(IdempotencyStore.HEADER, "loan-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+
+        // Without the key this retry would fail because the device is already loaned
+        mockMvc.perform(post("/api/loans")
+                        .header(IdempotencyStore.HEADER, "loan-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(content().json(first));
+
+        assertEquals(1, loanRepository.findByDeviceId(device.getId()).size());
+    }
+
+    @Test
+    void testLoanLifecycleRefreshesCachedDevice() throws Exception {
+        Device device = new Device();
+        device.setName("Camera");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setAddedDate(System.currentTimeMillis());
+        device = deviceRepository.save(device);
+
+        mockMvc.perform(get("/api/devices/{id}", device.getId()))
+                .andExpect(jsonPath("$.status", is(DeviceStatus.AVAILABLE.toString())));
+
+        Loan loan = new Loan();
+        loan.setDeviceId(device.getId());
+        String created = mockMvc.perform(post("/api/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loan)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/devices/{id}", device.getId()))
+                .andExpect(jsonPath("$.status", is(DeviceStatus.LOANED.toString())));
+
+        long loanId = objectMapper.readTree(created).get("id").asLong();
+        mockMvc.perform(put("/api/loans/{id}/return", loanId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/devices/{id}", device.getId()))
+                .andExpect(jsonPath("$.status", is(DeviceStatus.AVAILABLE.toString())));
+    }
+
     @Test
     void testGetAllLoans() throws Exception {
         Device device = new Device();
@@ -86,6 +155,91 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    void testExportLoansAsNdjson() throws Exception {
+        Device device = new Device();
+        device.setName("Scanner");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setAddedDate(System.currentTimeMillis());
+        device = deviceRepository.save(device);
+
+        for (String borrower : List.of("Alice", "Bob", "Carol")) {
+            Loan loan = new Loan();
+            loan.setDeviceId(device.getId());
+            loan.setBorrowedBy(borrower);
+            loan.setStartDate(System.currentTimeMillis());
+            loanRepository.save(loan);
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/loans/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("Alice", objectMapper.readTree(lines[0]).get("borrowedBy").asText());
+        assertEquals("Carol", objectMapper.readTree(lines[2]).get("borrowedBy").asText());
+    }
+
+    @Test
+    void testExportLoansAsCborSequence() throws Exception {
+        Device device = new Device();
+        device.setName("Scanner");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setAddedDate(System.currentTimeMillis());
+        device = deviceRepository.save(device);
+
+        for (String borrower : List.of("Alice", "Bob")) {
+            Loan loan = new Loan();
+            loan.setDeviceId(device.getId());
+            loan.setBorrowedBy(borrower);
+            loanRepository.save(loan);
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/loans/export")
+                        .accept(LoanController.APPLICATION_CBOR_SEQ, MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(LoanController.APPLICATION_CBOR_SEQ))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (MappingIterator<Loan> loans = new CBORMapper().readerFor(Loan.class).readValues(body)) {
+            List<Loan> decoded = loans.readAll();
+            assertEquals(List.of("Alice", "Bob"), decoded.stream().map(Loan::getBorrowedBy).toList());
+        }
+    }
+
+    @Test
+    void testGetLoansByDeviceIdAsCbor() throws Exception {
+        Device device = new Device();
+        device.setName("Scanner");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setAddedDate(System.currentTimeMillis());
+        device = deviceRepository.save(device);
+
+        Loan loan = new Loan();
+        loan.setDeviceId(device.getId());
+        loan.setBorrowedBy("Alice");
+        loanRepository.save(loan);
+
+        byte[] body = mockMvc.perform(get("/api/loans/device/" + device.getId()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Loan[] loans = new CBORMapper().readValue(body, Loan[].class);
+        assertEquals(1, loans.length);
+        assertEquals("Alice", loans[0].getBorrowedBy());
+    }
+
     @Test
     void testGetLoanById() throws Exception {
         Device device = new Device();
@@ -181,6 +335,160 @@ class LoanControllerTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void testGetLoanStats() throws Exception {
+        Device device = new Device();
+        device.setName("Tablet");
+        device.setStatus(DeviceStatus.LOANED);
+        device.setAddedDate(System.currentTimeMillis());
+        device = deviceRepository.save(device);
+
+        Loan returnedLoan = new Loan();
+        returnedLoan.setDeviceId(device.getId());
+        returnedLoan.setReturned(true);
+        loanRepository.save(returnedLoan);
+
+        Loan openLoan = new Loan();
+        openLoan.setDeviceId(device.getId());
+        loanRepository.save(openLoan);
+
+        mockMvc.perform(get("/api/loans/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.open", is(1)))
+                .andExpect(jsonPath("$.returned", is(1)));
+    }
+
+    @Test
+    void testGetLoanAnalytics() throws Exception {
+        Device laptop = new Device();
+        laptop.setName("Laptop 1");
+        laptop.setType("Laptop");
+        laptop.setLocation("Room101");
+        laptop.setStatus(DeviceStatus.AVAILABLE);
+        laptop = deviceRepository.save(laptop);
+
+        Loan archivedShape = new Loan();
+        archivedShape.setDeviceId(laptop.getId());
+        archivedShape.setStartDate(1_000L);
+        archivedShape.setEndDate(5_000L);
+        archivedShape.setReturned(true);
+        loanRepository.save(archivedShape);
+        mockMvc.perform(post("/api/loans/analytics/rebuild"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/api/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deviceId\":" + laptop.getId() + ",\"borrowedBy\":\"Alice\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/loans/analytics").param("by", "TYPE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].key", is("Laptop")))
+                .andExpect(jsonPath("$[0].devices", is(1)))
+                .andExpect(jsonPath("$[0].loans", is(2)))
+                .andExpect(jsonPath("$[0].out", is(1)))
+                .andExpect(jsonPath("$[0].returned", is(1)))
+                .andExpect(jsonPath("$[0].averageDuration", is(4000.0)))
+                .andExpect(jsonPath("$[0].utilization", is(1.0)));
+        mockMvc.perform(get("/api/loans/analytics").param("by", "LOCATION"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key", is("Room101")));
+        mockMvc.perform(get("/api/loans/analytics").param("by", "owner"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetLoanStatsEmpty() throws Exception {
+        mockMvc.perform(get("/api/loans/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(0)))
+                .andExpect(jsonPath("$.open", is(0)))
+                .andExpect(jsonPath("$.returned", is(0)));
+    }
+
+    @Test
+    void testGetLoansByDeviceIdConditional() throws Exception {
+        Device device = new Device();
+        device.setName("Speaker");
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setAddedDate(System.currentTimeMillis());
+        device = deviceRepository.save(device);
+
+        String etag = mockMvc.perform(get("/api/loans/device/{deviceId}", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/loans/device/{deviceId}", device.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Loan loan = new Loan();
+        loan.setDeviceId(device.getId());
+        mockMvc.perform(post("/api/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loan)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/loans/device/{deviceId}", device.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/api/loans")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testReturnLoansInBulk() throws Exception {
+        Device first = new Device();
+        first.setName("Laptop");
+        first.setStatus(DeviceStatus.LOANED);
+        first = deviceRepository.save(first);
+        Device second = new Device();
+        second.setName("Tablet");
+        second.setStatus(DeviceStatus.LOANED);
+        second = deviceRepository.save(second);
+
+        Loan firstLoan = new Loan();
+        firstLoan.setDeviceId(first.getId());
+        firstLoan = loanRepository.save(firstLoan);
+        Loan secondLoan = new Loan();
+        secondLoan.setDeviceId(second.getId());
+        secondLoan = loanRepository.save(secondLoan);
+        Loan closedLoan = new Loan();
+        closedLoan.setDeviceId(first.getId());
+        closedLoan.setReturned(true);
+        closedLoan = loanRepository.save(closedLoan);
+
+        List<Long> ids = List.of(firstLoan.getId(), secondLoan.getId(), closedLoan.getId(), 9999L);
+        mockMvc.perform(put("/api/loans/return")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.returned", is(2)))
+                .andExpect(jsonPath("$.failed", is(2)))
+                .andExpect(jsonPath("$.items[0].outcome", is("RETURNED")))
+                .andExpect(jsonPath("$.items[1].outcome", is("RETURNED")))
+                .andExpect(jsonPath("$.items[2].outcome", is("ALREADY_RETURNED")))
+                .andExpect(jsonPath("$.items[3].outcome", is("NOT_FOUND")));
+
+        assertTrue(loanRepository.findById(firstLoan.getId()).orElseThrow().isReturned());
+        assertTrue(loanRepository.findById(secondLoan.getId()).orElseThrow().getEndDate() > 0);
+        assertEquals(DeviceStatus.AVAILABLE, deviceRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(DeviceStatus.AVAILABLE, deviceRepository.findById(second.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testReturnLoansInBulkEmpty() throws Exception {
+        mockMvc.perform(put("/api/loans/return")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetLoan_NotFound() throws Exception {
         mockMvc.perform(get("/api/loans/9999"))
@@ -0,0 +1,172 @@
+package edu.unac.journal;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.domain.Loan;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.DeviceRegisteredEvent;
+import edu.unac.event.LoanChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private EventJournal open(DataSize segmentSize) throws IOException {
+        return new EventJournal(directory, segmentSize, Duration.ofMillis(10), 1024, Duration.ofMillis(100));
+    }
+
+    @Test
+    void replaysLoanLifecycle() throws Exception {
+        EventJournal journal = open(DataSize.ofMegabytes(1));
+        journal.onDeviceRegistered(new DeviceRegisteredEvent(1L, "Laptop", "Electronics", "Room 1", 50L));
+        journal.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.AVAILABLE, 0));
+        journal.onDeviceRegistered(new DeviceRegisteredEvent(2L, "Projector", null, null, 60L));
+        journal.onDeviceChanged(new DeviceChangedEvent(2L, DeviceStatus.AVAILABLE, 0));
+        journal.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.LOANED, 1));
+        journal.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", false, 100L));
+        journal.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.AVAILABLE, 2));
+        journal.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", true, 200L));
+        journal.onDeviceChanged(DeviceChangedEvent.deleted(2L));
+        journal.destroy();
+
+        JournalReplay.State state = JournalReplay.replay(directory);
+
+        // Initial statuses are implied by the registrations and not journaled separately
+        assertEquals(7, state.entries());
+        assertEquals(7, state.lastSequence());
+        assertEquals(Set.of(1L), state.devices().keySet());
+        Device device = state.devices().get(1L);
+        assertEquals("Laptop", device.getName());
+        assertEquals("Electronics", device.getType());
+        assertEquals("Room 1", device.getLocation());
+        assertEquals(50L, device.getAddedDate());
+        assertEquals(DeviceStatus.AVAILABLE, device.getStatus());
+        assertEquals("Alice", state.loans().get(10L).getBorrowedBy());
+        assertEquals(100L, state.loans().get(10L).getStartDate());
+        assertEquals(200L, state.loans().get(10L).getEndDate());
+        assertEquals(0, state.openLoans());
+    }
+
+    @Test
+    void replayOrdersByVersionNotJournalOrder() throws Exception {
+        EventJournal journal = open(DataSize.ofMegabytes(1));
+        // Listeners of concurrent commits ran in the opposite order of the commits
+        journal.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.AVAILABLE, 2));
+        journal.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.LOANED, 1));
+        journal.onDeviceRegistered(new DeviceRegisteredEvent(1L, "Laptop", "Electronics", "Room 1", 50L));
+        journal.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", true, 200L));
+        journal.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", false, 100L));
+        journal.onDeviceChanged(DeviceChangedEvent.deleted(2L));
+        journal.onDeviceChanged(new DeviceChangedEvent(2L, DeviceStatus.MAINTENANCE, 1));
+        journal.destroy();
+
+        JournalReplay.State state = JournalReplay.replay(directory);
+
+        assertEquals(Set.of(1L), state.devices().keySet());
+        assertEquals(DeviceStatus.AVAILABLE, state.devices().get(1L).getStatus());
+        assertEquals(2, state.devices().get(1L).getVersion());
+        assertEquals("Laptop", state.devices().get(1L).getName());
+        Loan loan = state.loans().get(10L);
+        assertTrue(loan.isReturned());
+        assertEquals(100L, loan.getStartDate());
+        assertEquals(200L, loan.getEndDate());
+    }
+
+    @Test
+    void rotatesSegmentsAndContinuesSequenceAfterRestart() throws Exception {
+        EventJournal journal = open(DataSize.ofBytes(256));
+        for (long i = 1; i <= 50; i++) {
+            journal.onLoanChanged(new LoanChangedEvent(i, i, "borrower-" + i, false, i));
+        }
+        journal.destroy();
+        journal = open(DataSize.ofBytes(256));
+        journal.onLoanChanged(new LoanChangedEvent(51L, 51L, "late", false, 51L));
+        journal.destroy();
+
+        List<JournalEntry> entries = new ArrayList<>();
+        JournalReader.read(directory, entries::add);
+
+        assertTrue(JournalReader.segments(directory).size() > 2);
+        assertEquals(51, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, entries.get(i).sequence());
+            assertEquals(i + 1, entries.get(i).loanId());
+        }
+    }
+
+    @Test
+    void keepsAcceptingEntriesWhenSegmentCannotBeCreated() throws Exception {
+        EventJournal journal = new EventJournal(directory, DataSize.ofBytes(256), Duration.ofMillis(10), 4,
+                Duration.ofMillis(10));
+        journal.onLoanChanged(new LoanChangedEvent(1L, 1L, "Alice", false, 1L));
+        await(() -> journal.lastWrittenSequence() == 1);
+        FileSystemUtils.deleteRecursively(directory);
+
+        // Every rotation now fails; the committing threads must neither block nor kill the writer
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (long i = 2; i <= 200; i++) {
+                journal.onLoanChanged(new LoanChangedEvent(i, i, "lost-" + i, false, i));
+            }
+        });
+        await(() -> journal.lastWrittenSequence() + journal.droppedEntries() == 200);
+        assertTrue(journal.droppedEntries() > 0);
+
+        Files.createDirectories(directory);
+        long resumed = journal.lastWrittenSequence();
+        journal.onLoanChanged(new LoanChangedEvent(500L, 500L, "Bob", false, 500L));
+        journal.onLoanChanged(new LoanChangedEvent(501L, 501L, "Carol", false, 501L));
+        journal.destroy();
+
+        List<JournalEntry> entries = new ArrayList<>();
+        JournalReader.read(directory, entries::add);
+        assertEquals(List.of(500L, 501L), entries.stream().map(JournalEntry::loanId).toList());
+        assertEquals(resumed + 1, entries.get(0).sequence());
+        assertEquals(resumed + 2, entries.get(1).sequence());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "journal writer did not catch up");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void stopsAtTornTailAndResumesInNewSegment() throws Exception {
+        EventJournal journal = open(DataSize.ofMegabytes(1));
+        journal.onLoanChanged(new LoanChangedEvent(1L, 1L, "Alice", false, 1L));
+        journal.onLoanChanged(new LoanChangedEvent(2L, 2L, "Bob", false, 2L));
+        journal.destroy();
+        Path segment = JournalReader.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        journal = open(DataSize.ofMegabytes(1));
+        journal.onLoanChanged(new LoanChangedEvent(3L, 3L, "Carol", false, 3L));
+        journal.destroy();
+
+        JournalReplay.State state = JournalReplay.replay(directory);
+        assertEquals(Set.of(1L, 3L), state.loans().keySet());
+        assertEquals(2, state.lastSequence());
+    }
+}
@@ -0,0 +1,90 @@
+package edu.unac.load;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.domain.Loan;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanRepository;
+import edu.unac.service.LoanService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks out distinct devices from several threads at once and prints the loans per second the
+ * conditional-update checkout sustains. Tuned through -Dload.threads and -Dload.devicesPerThread.
+ */
+@Tag("load")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:checkoutLoadDb")
+class CheckoutThroughputLoadTest {
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void checkoutThroughput() throws Exception {
+        int threads = LoadDriver.intProperty("load.threads", 8);
+        int devicesPerThread = LoadDriver.intProperty("load.devicesPerThread", 1_000);
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < threads * devicesPerThread; i++) {
+            Device device = new Device();
+            device.setName("Laptop " + i);
+            device.setStatus(DeviceStatus.AVAILABLE);
+            device.setAddedDate(System.currentTimeMillis());
+            devices.add(device);
+        }
+        deviceRepository.saveAll(devices);
+        long loansBefore = loanRepository.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        long elapsedNanos;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    for (int i = 0; i < devicesPerThread; i++) {
+                        Loan loan = new Loan();
+                        loan.setDeviceId(devices.get(thread * devicesPerThread + i).getId());
+                        loan.setBorrowedBy("User " + thread);
+                        loanService.registerLoan(loan);
+                    }
+                    return null;
+                }));
+            }
+            long start = System.nanoTime();
+            startGate.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double perSecond = devices.size() / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("Checkout throughput: %d loans with %d threads in %d ms (%.0f loans/s)%n",
+                devices.size(), threads, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), perSecond);
+
+        assertEquals(devices.size(), loanRepository.count() - loansBefore);
+    }
+}
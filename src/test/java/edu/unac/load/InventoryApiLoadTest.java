@@ -0,0 +1,177 @@
+package edu.unac.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a realistic mix of device registrations, checkouts, returns and listings against the
+ * full application on a random port and fails when the run misses its thresholds.
+ * <p>
+ * Every worker owns its own devices, so checkouts and returns never compete for the same device
+ * and any non-success status counts as an error. Tuned through -Dload.concurrency,
+ * -Dload.duration, -Dload.warmup (seconds), and the thresholds -Dload.min-throughput (req/s),
+ * -Dload.max-p99-ms and -Dload.max-error-rate.
+ */
+@Tag("load")
+class InventoryApiLoadTest {
+    private static final int DEVICES_PER_WORKER = 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void mixedWorkloadMeetsThresholds() throws Exception {
+        int concurrency = LoadDriver.intProperty("load.concurrency", 64);
+        Duration warmup = Duration.ofSeconds(LoadDriver.intProperty("load.warmup", 5));
+        Duration duration = Duration.ofSeconds(LoadDriver.intProperty("load.duration", 15));
+        double minThroughput = LoadDriver.doubleProperty("load.min-throughput", 50);
+        double maxP99Millis = LoadDriver.doubleProperty("load.max-p99-ms", 2000);
+        double maxErrorRate = LoadDriver.doubleProperty("load.max-error-rate", 0);
+
+        Map<String, LoadDriver.Result> results;
+        try (InventoryServer server = new InventoryServer("apiLoad", new String[0]);
+             LoadDriver driver = new LoadDriver()) {
+            Worker[] workers = seed(server, concurrency);
+            results = driver.runMix("total", concurrency, warmup, duration, List.of(
+                    new LoadDriver.Step("list available devices", 30,
+                            (client, worker) -> ok(client, server.request(
+                                    "/api/devices?status=AVAILABLE&limit=50").GET().build(), 200)),
+                    new LoadDriver.Step("loans by device", 15,
+                            (client, worker) -> ok(client, server.request(
+                                    "/api/loans/device/" + workers[worker].anyDevice()).GET().build(), 200)),
+                    new LoadDriver.Step("register device", 5,
+                            (client, worker) -> workers[worker].register(client, server)),
+                    new LoadDriver.Step("checkout", 25,
+                            (client, worker) -> workers[worker].checkout(client, server)),
+                    new LoadDriver.Step("return", 25,
+                            (client, worker) -> workers[worker].giveBack(client, server))));
+        }
+
+        results.values().forEach(System.out::println);
+        LoadDriver.Result total = results.get("total");
+        assertAll(
+                () -> assertTrue(total.throughput() >= minThroughput,
+                        String.format("throughput %.1f req/s below %.1f", total.throughput(), minThroughput)),
+                () -> assertTrue(total.percentileMillis(99) <= maxP99Millis,
+                        String.format("p99 %.1f ms above %.1f ms", total.percentileMillis(99), maxP99Millis)),
+                () -> assertTrue(total.errorRate() <= maxErrorRate,
+                        String.format("error rate %.4f above %.4f", total.errorRate(), maxErrorRate)));
+    }
+
+    private static boolean ok(HttpClient client, HttpRequest request, int expectedStatus) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == expectedStatus;
+    }
+
+    /**
+     * Registers {@code DEVICES_PER_WORKER} devices per worker and checks out half of them, so
+     * each worker starts with both checkouts and returns available to it.
+     */
+    private Worker[] seed(InventoryServer server, int concurrency) throws Exception {
+        Worker[] workers = new Worker[concurrency];
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers[w] = new Worker(w);
+                StringBuilder batch = new StringBuilder("[");
+                for (int i = 0; i < DEVICES_PER_WORKER; i++) {
+                    batch.append(i == 0 ? "" : ",").append(deviceJson(w, i));
+                }
+                batch.append(']');
+                HttpResponse<String> created = client.send(
+                        server.postJson("/api/devices/batch", batch.toString()).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                for (JsonNode item : objectMapper.readTree(created.body()).get("items")) {
+                    workers[w].available.add(item.get("id").asLong());
+                    workers[w].all.add(item.get("id").asLong());
+                }
+                for (int i = 0; i < DEVICES_PER_WORKER / 2; i++) {
+                    workers[w].checkout(client, server);
+                }
+            }
+        }
+        return workers;
+    }
+
+    private static String deviceJson(int worker, int index) {
+        return "{\"name\":\"Device " + worker + "-" + index
+                + "\",\"type\":\"" + (index % 2 == 0 ? "Laptop" : "Projector")
+                + "\",\"location\":\"Building " + (char) ('A' + index % 4) + "\"}";
+    }
+
+    /**
+     * Devices and open loans owned by one worker. Only that worker's thread touches it.
+     */
+    private final class Worker {
+        private final int id;
+        private final List<Long> all = new ArrayList<>();
+        private final ArrayDeque<Long> available = new ArrayDeque<>();
+        private final ArrayDeque<long[]> openLoans = new ArrayDeque<>();
+        private int registered;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        long anyDevice() {
+            return all.get(ThreadLocalRandom.current().nextInt(all.size()));
+        }
+
+        boolean register(HttpClient client, InventoryServer server) throws Exception {
+            HttpResponse<String> response = client.send(
+                    server.postJson("/api/devices", deviceJson(id, DEVICES_PER_WORKER + registered++)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                return false;
+            }
+            long deviceId = objectMapper.readTree(response.body()).get("id").asLong();
+            available.add(deviceId);
+            all.add(deviceId);
+            return true;
+        }
+
+        // Falls back to a return when every device of this worker is out, and vice versa below
+        boolean checkout(HttpClient client, InventoryServer server) throws Exception {
+            if (available.isEmpty()) {
+                return giveBack(client, server);
+            }
+            long deviceId = available.poll();
+            HttpResponse<String> response = client.send(server.postJson("/api/loans",
+                            "{\"deviceId\":" + deviceId + ",\"borrowedBy\":\"worker-" + id + "\"}").build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                available.add(deviceId);
+                return false;
+            }
+            openLoans.add(new long[]{objectMapper.readTree(response.body()).get("id").asLong(), deviceId});
+            return true;
+        }
+
+        boolean giveBack(HttpClient client, InventoryServer server) throws Exception {
+            if (openLoans.isEmpty()) {
+                return checkout(client, server);
+            }
+            long[] loan = openLoans.poll();
+            HttpResponse<Void> response = client.send(server.request("/api/loans/" + loan[0] + "/return")
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                openLoans.add(loan);
+                return false;
+            }
+            available.add(loan[1]);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package edu.unac.load;
+
+import edu.unac.InventoryManagementApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The full application listening on a random port, backed by its own in-memory database.
+ */
+final class InventoryServer implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+
+    InventoryServer(String name, String[] profiles, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles(profiles)
+                .run(args.toArray(String[]::new));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+    }
+
+    HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path));
+    }
+
+    HttpRequest.Builder postJson(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,195 @@
+package edu.unac.load;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load generator: every worker sends its next request as soon as the previous one
+ * has completed. Workers run on virtual threads so the client side is never the bottleneck.
+ */
+final class LoadDriver implements AutoCloseable {
+
+    @FunctionalInterface
+    interface Operation {
+        /**
+         * Issues one request and returns whether it succeeded.
+         */
+        boolean execute(HttpClient client, int worker) throws Exception;
+    }
+
+    /**
+     * One kind of request in a mix, picked with probability proportional to {@code weight}.
+     */
+    record Step(String name, int weight, Operation operation) {
+    }
+
+    record Result(String name, int concurrency, long requests, long errors, Duration elapsed, long[] latencies) {
+
+        double throughput() {
+            return requests / (elapsed.toNanos() / 1_000_000_000.0);
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s c=%-4d %8d req %6d err %9.1f req/s  p50 %7.2f ms  p95 %7.2f ms  p99 %7.2f ms",
+                    name, concurrency, requests, errors, throughput(),
+                    percentileMillis(50), percentileMillis(95), percentileMillis(99));
+        }
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    /**
+     * Runs {@code operation} from {@code concurrency} workers, first for {@code warmup} without
+     * recording anything and then for {@code duration}.
+     */
+    Result run(String name, int concurrency, Duration warmup, Duration duration, Operation operation) throws Exception {
+        return runMix(name, concurrency, warmup, duration, List.of(new Step(name, 1, operation))).get(name);
+    }
+
+    /**
+     * Like {@link #run}, but every request is a weighted random pick from {@code steps}. Returns one
+     * result per step, in step order, followed by the combined result under {@code name}.
+     */
+    Map<String, Result> runMix(String name, int concurrency, Duration warmup, Duration duration,
+                               List<Step> steps) throws Exception {
+        int[] cumulativeWeights = new int[steps.size()];
+        int total = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            total += steps.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+
+        drive(concurrency, warmup, steps, cumulativeWeights);
+        long start = System.nanoTime();
+        List<Recorder[]> recorders = drive(concurrency, duration, steps, cumulativeWeights);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        List<Recorder> all = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            List<Recorder> forStep = new ArrayList<>(concurrency);
+            for (Recorder[] worker : recorders) {
+                forStep.add(worker[i]);
+            }
+            all.addAll(forStep);
+            results.put(steps.get(i).name(), merge(steps.get(i).name(), concurrency, elapsed, forStep));
+        }
+        results.put(name, merge(name, concurrency, elapsed, all));
+        return results;
+    }
+
+    private static Result merge(String name, int concurrency, Duration elapsed, List<Recorder> recorders) {
+        long errors = 0;
+        int total = 0;
+        for (Recorder recorder : recorders) {
+            errors += recorder.errors;
+            total += recorder.size;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, latencies, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(latencies);
+        return new Result(name, concurrency, total, errors, elapsed, latencies);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    private List<Recorder[]> drive(int concurrency, Duration duration, List<Step> steps,
+                                   int[] cumulativeWeights) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        int totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Recorder[]>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                int worker = i;
+                futures.add(workers.submit(() -> {
+                    Recorder[] recorders = new Recorder[steps.size()];
+                    for (int step = 0; step < recorders.length; step++) {
+                        recorders[step] = new Recorder();
+                    }
+                    while (System.nanoTime() < deadline) {
+                        int step = pick(cumulativeWeights, ThreadLocalRandom.current().nextInt(totalWeight));
+                        long begin = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = steps.get(step).operation().execute(client, worker);
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        recorders[step].record(System.nanoTime() - begin, ok);
+                    }
+                    return recorders;
+                }));
+            }
+            List<Recorder[]> recorders = new ArrayList<>(concurrency);
+            for (Future<Recorder[]> future : futures) {
+                recorders.add(future.get());
+            }
+            return recorders;
+        }
+    }
+
+    private static int pick(int[] cumulativeWeights, int roll) {
+        int step = 0;
+        while (roll >= cumulativeWeights[step]) {
+            step++;
+        }
+        return step;
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (!ok) {
+                errors++;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+    }
+}
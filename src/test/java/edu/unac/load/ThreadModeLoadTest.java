@@ -0,0 +1,100 @@
+package edu.unac.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the same read mix against the application with platform request threads and with the
+ * virtual-threads profile, and prints throughput and latency percentiles for both.
+ * Tuned through -Dload.concurrency, -Dload.duration and -Dload.warmup (seconds).
+ */
+@Tag("load")
+class ThreadModeLoadTest {
+    private static final int DEVICES = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        int concurrency = LoadDriver.intProperty("load.concurrency", 400);
+        Duration warmup = Duration.ofSeconds(LoadDriver.intProperty("load.warmup", 5));
+        Duration duration = Duration.ofSeconds(LoadDriver.intProperty("load.duration", 15));
+
+        LoadDriver.Result platform = measure("platform-threads", new String[0], concurrency, warmup, duration);
+        LoadDriver.Result virtual = measure("virtual-threads", new String[]{"virtual-threads"}, concurrency, warmup, duration);
+
+        System.out.println(platform);
+        System.out.println(virtual);
+        System.out.printf("virtual/platform: throughput x%.2f, p99 x%.2f%n",
+                virtual.throughput() / platform.throughput(),
+                virtual.percentileMillis(99) / platform.percentileMillis(99));
+
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+    }
+
+    private LoadDriver.Result measure(String name, String[] profiles, int concurrency,
+                                      Duration warmup, Duration duration) throws Exception {
+        try (InventoryServer server = new InventoryServer(name, profiles);
+             LoadDriver driver = new LoadDriver()) {
+            long[] deviceIds = seed(server);
+            return driver.run(name, concurrency, warmup, duration, (client, worker) -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long deviceId = deviceIds[random.nextInt(deviceIds.length)];
+                int pick = random.nextInt(100);
+                String path;
+                if (pick < 50) {
+                    path = "/api/loans/device/" + deviceId;
+                } else if (pick < 80) {
+                    path = "/api/devices?limit=20&after=" + (deviceId - 1);
+                } else {
+                    path = "/api/devices/" + deviceId;
+                }
+                HttpResponse<Void> response = client.send(server.request(path).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                return response.statusCode() == 200;
+            });
+        }
+    }
+
+    private long[] seed(InventoryServer server) throws Exception {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < DEVICES; i++) {
+            batch.append(i == 0 ? "" : ",")
+                    .append("{\"name\":\"Device ").append(i)
+                    .append("\",\"type\":\"Laptop\",\"location\":\"Building A\"}");
+        }
+        batch.append(']');
+
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> created = client.send(server.postJson("/api/devices/batch", batch.toString()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode items = objectMapper.readTree(created.body()).get("items");
+            long[] ids = new long[items.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = items.get(i).get("id").asLong();
+            }
+
+            // Give a fifth of the devices some returned loan history
+            for (int i = 0; i < ids.length; i += 5) {
+                HttpResponse<String> loan = client.send(server.postJson("/api/loans",
+                                "{\"deviceId\":" + ids[i] + ",\"borrowedBy\":\"seed\"}").build(),
+                        HttpResponse.BodyHandlers.ofString());
+                long loanId = objectMapper.readTree(loan.body()).get("id").asLong();
+                client.send(server.request("/api/loans/" + loanId + "/return")
+                        .PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+            }
+            return ids;
+        }
+    }
+}
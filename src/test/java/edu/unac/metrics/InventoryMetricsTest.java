@@ -0,0 +1,113 @@
+package edu.unac.metrics;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.domain.Loan;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanRepository;
+import edu.unac.service.AvailabilityIndex;
+import edu.unac.service.DeviceService;
+import edu.unac.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class InventoryMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setup() {
+        loanRepository.deleteAll();
+        deviceRepository.deleteAll();
+        // The gauges read the in-memory index, which does not see repository-level deletes
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void serviceTimersAndGaugesAreExposedToPrometheus() throws Exception {
+        Device device = new Device();
+        device.setName("Laptop");
+        device = deviceService.registerDevice(device);
+
+        Loan loan = new Loan();
+        loan.setDeviceId(device.getId());
+        loanService.registerLoan(loan);
+
+        mockMvc.perform(get("/api/devices/{id}", device.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/devices/{id}/status", 999L)
+                        .param("status", DeviceStatus.MAINTENANCE.toString()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/devices/{id}", device.getId()))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "inventory_service_seconds_bucket{class=\"DeviceService\",exception=\"none\",method=\"getDeviceById\",outcome=\"success\"")))
+                .andExpect(content().string(containsString(
+                        "inventory_service_seconds_count{class=\"DeviceService\",exception=\"IllegalArgumentException\",method=\"updateDeviceStatus\",outcome=\"error\"}")))
+                .andExpect(content().string(containsString(
+                        "inventory_service_seconds_count{class=\"DeviceService\",exception=\"IllegalStateException\",method=\"deleteDevice\",outcome=\"error\"}")))
+                .andExpect(content().string(containsString("inventory_devices{status=\"LOANED\"} 1.0")))
+                .andExpect(content().string(containsString("inventory_loans_open 1.0")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")));
+    }
+
+    @Test
+    void serviceTagsNameTheExceptionBehindTheControllerStatus() throws Exception {
+        Device device = new Device();
+        device.setName("Laptop");
+        device = deviceService.registerDevice(device);
+        String body = "{\"deviceId\":" + device.getId() + ",\"borrowedBy\":\"Alice\"}";
+
+        mockMvc.perform(post("/api/loans").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+        // Missing and unavailable devices are both a 400 here, whatever the exception type
+        mockMvc.perform(post("/api/loans").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/loans").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deviceId\":999999,\"borrowedBy\":\"Alice\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "inventory_service_seconds_count{class=\"LoanService\",exception=\"none\",method=\"registerLoan\",outcome=\"success\"}")))
+                .andExpect(content().string(containsString(
+                        "inventory_service_seconds_count{class=\"LoanService\",exception=\"IllegalStateException\",method=\"registerLoan\",outcome=\"error\"}")))
+                .andExpect(content().string(containsString(
+                        "inventory_service_seconds_count{class=\"LoanService\",exception=\"IllegalArgumentException\",method=\"registerLoan\",outcome=\"error\"}")))
+                .andExpect(content().string(containsString(
+                        "http_server_requests_seconds_count{error=\"none\",exception=\"none\",method=\"POST\",outcome=\"CLIENT_ERROR\",status=\"400\",uri=\"/api/loans\"} 2")));
+    }
+}
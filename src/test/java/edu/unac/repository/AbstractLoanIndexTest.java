@@ -0,0 +1,81 @@
+package edu.unac.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a loan table and checks, through H2's EXPLAIN ANALYZE scan counts, that the per-device
+ * lookups only touch the rows of that device instead of the whole table. Subclasses pick the
+ * table size and their own in-memory database.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class AbstractLoanIndexTest {
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    private final int loans;
+    private final int devices;
+
+    AbstractLoanIndexTest(int loans, int devices) {
+        this.loans = loans;
+        this.devices = devices;
+    }
+
+    @BeforeAll
+    void seed() {
+        // Every device gets loans / devices loans, one in a hundred of them still open
+        jdbcTemplate.update("INSERT INTO loan (device_id, borrowed_by, start_date, end_date, returned) "
+                        + "SELECT MOD(X, ?), 'user', X, X, MOD(X / ?, 100) <> 0 FROM SYSTEM_RANGE(0, ?)",
+                devices, devices, loans - 1);
+    }
+
+    @AfterAll
+    void cleanup() {
+        jdbcTemplate.execute("TRUNCATE TABLE loan");
+    }
+
+    @Test
+    void loansByDeviceUseIndex() {
+        String plan = explain("SELECT * FROM loan WHERE device_id = 42");
+
+        assertTrue(plan.contains("IDX_LOAN_DEVICE_RETURNED"), plan);
+        assertTrue(scanCount(plan) <= loans / devices + 1, plan);
+        assertEquals(loans / devices, loanRepository.findByDeviceId(42L).size());
+    }
+
+    @Test
+    void openLoanCheckUsesIndex() {
+        String plan = explain("SELECT COUNT(*) > 0 FROM loan WHERE device_id = 42 AND returned = FALSE");
+
+        assertTrue(plan.contains("IDX_LOAN_DEVICE_RETURNED"), plan);
+        assertTrue(scanCount(plan) <= loans / devices / 100 + 1, plan);
+        assertTrue(deviceRepository.existsLoanByDeviceId(42L));
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN ANALYZE " + sql, String.class);
+    }
+
+    private long scanCount(String plan) {
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        assertTrue(matcher.find(), plan);
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,17 @@
+package edu.unac.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The index checks against a million-row loan table, showing the per-device lookups stay flat as
+ * history grows. Seeding takes tens of seconds, so it only runs with {@code -Pload-test}.
+ */
+@Tag("load")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:loanIndexLoadDb")
+class LoanRepositoryIndexLoadTest extends AbstractLoanIndexTest {
+
+    LoanRepositoryIndexLoadTest() {
+        super(1_000_000, 1_000);
+    }
+}
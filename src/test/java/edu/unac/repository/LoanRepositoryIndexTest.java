@@ -0,0 +1,16 @@
+package edu.unac.repository;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Index coverage on a table small enough for every build; the scan counts already prove the
+ * lookups do not read other devices' loans. {@link LoanRepositoryIndexLoadTest} repeats it at
+ * a million rows.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:loanIndexDb")
+class LoanRepositoryIndexTest extends AbstractLoanIndexTest {
+
+    LoanRepositoryIndexTest() {
+        super(5_000, 50);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.unac.repository;
+
+import edu.unac.InventoryManagementApplication;
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.domain.Loan;
+import edu.unac.journal.JournalReplay;
+import edu.unac.service.DeviceService;
+import edu.unac.service.LoanService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the persistent profile twice against the same data directory. The first boot proves the
+ * Flyway migrations match the entities (Hibernate validates them), the second that data survives.
+ * The journal written alongside must replay to the same state.
+ */
+class PersistentStorageTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void inventorySurvivesRestart() throws IOException {
+        Long deviceId;
+        Long loanId;
+        try (ConfigurableApplicationContext context = start()) {
+            Device device = new Device();
+            device.setName("Projector");
+            device.setType("Multimedia");
+            device.setLocation("Room101");
+            deviceId = context.getBean(DeviceService.class).registerDevice(device).getId();
+
+            Loan loan = new Loan();
+            loan.setDeviceId(deviceId);
+            loan.setBorrowedBy("Alice");
+            loanId = context.getBean(LoanService.class).registerLoan(loan).getId();
+        }
+
+        JournalReplay.State replayed = JournalReplay.replay(dataDir.resolve("journal"));
+        assertEquals(DeviceStatus.LOANED, replayed.devices().get(deviceId).getStatus());
+        assertEquals("Projector", replayed.devices().get(deviceId).getName());
+        assertEquals("Room101", replayed.devices().get(deviceId).getLocation());
+        assertEquals("Alice", replayed.loans().get(loanId).getBorrowedBy());
+        assertEquals(1, replayed.openLoans());
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertEquals("Projector", context.getBean(DeviceService.class).getDeviceById(deviceId)
+                    .orElseThrow().getName());
+            assertEquals("Alice", context.getBean(LoanService.class).getLoanById(loanId)
+                    .orElseThrow().getBorrowedBy());
+
+            Device another = new Device();
+            another.setName("Speaker");
+            assertNotEquals(deviceId, context.getBean(DeviceService.class).registerDevice(another).getId());
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("persistent")
+                .run("--inventory.data-dir=" + dataDir.toAbsolutePath(),
+                        "--spring.main.banner-mode=off");
+    }
+}
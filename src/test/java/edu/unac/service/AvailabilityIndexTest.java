@@ -0,0 +1,97 @@
+package edu.unac.service;
+
+import edu.unac.domain.DeviceStatus;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.LoanChangedEvent;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AvailabilityIndexTest {
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AvailabilityIndex(mock(DeviceRepository.class), mock(LoanRepository.class),
+                mock(TransactionTemplate.class));
+    }
+
+    @Test
+    void tracksLoanLifecycle() {
+        index.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.AVAILABLE, 0));
+        assertFalse(index.isKnownUnavailable(1L));
+
+        index.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.LOANED, 1));
+        index.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", false, 0L));
+        assertTrue(index.hasOpenLoan(1L));
+        assertTrue(index.isKnownUnavailable(1L));
+        assertEquals(1, index.count(DeviceStatus.LOANED));
+        assertEquals(0, index.count(DeviceStatus.AVAILABLE));
+        assertEquals(1, index.openLoanCount());
+
+        index.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", true, 0L));
+        index.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.AVAILABLE, 2));
+        assertFalse(index.hasOpenLoan(1L));
+        assertEquals(DeviceStatus.AVAILABLE, index.statusOf(1L));
+        assertEquals(0, index.openLoanCount());
+    }
+
+    @Test
+    void lateOpenEventDoesNotResurrectReturnedLoan() {
+        index.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", true, 0L));
+        index.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", false, 0L));
+
+        assertFalse(index.hasOpenLoan(1L));
+        assertEquals(0, index.openLoanCount());
+
+        index.onLoanChanged(new LoanChangedEvent(11L, 1L, "Alice", false, 0L));
+        assertTrue(index.hasOpenLoan(1L));
+    }
+
+    @Test
+    void maintenanceAndDeletion() {
+        index.onDeviceChanged(new DeviceChangedEvent(2L, DeviceStatus.MAINTENANCE, 1));
+        assertTrue(index.isKnownUnavailable(2L));
+
+        index.onDeviceChanged(DeviceChangedEvent.deleted(2L));
+        assertNull(index.statusOf(2L));
+        assertFalse(index.isKnownUnavailable(2L));
+        assertEquals(0, index.count(DeviceStatus.MAINTENANCE));
+    }
+
+    @Test
+    void staleStatusEventsAreIgnored() {
+        index.onDeviceChanged(new DeviceChangedEvent(3L, DeviceStatus.AVAILABLE, 2));
+        index.onDeviceChanged(new DeviceChangedEvent(3L, DeviceStatus.MAINTENANCE, 1));
+        assertEquals(DeviceStatus.AVAILABLE, index.statusOf(3L));
+        assertFalse(index.isKnownUnavailable(3L));
+        assertEquals(0, index.count(DeviceStatus.MAINTENANCE));
+
+        index.onDeviceChanged(DeviceChangedEvent.deleted(3L));
+        index.onDeviceChanged(new DeviceChangedEvent(3L, DeviceStatus.RETIRED, 3));
+        assertNull(index.statusOf(3L));
+        assertEquals(0, index.count(DeviceStatus.RETIRED));
+    }
+
+    @Test
+    void openLoanOnDeviceResetToAvailableIsNotRejected() {
+        index.onDeviceChanged(new DeviceChangedEvent(4L, DeviceStatus.LOANED, 1));
+        index.onLoanChanged(new LoanChangedEvent(10L, 4L, "Alice", false, 0L));
+        index.onDeviceChanged(new DeviceChangedEvent(4L, DeviceStatus.AVAILABLE, 2));
+
+        assertTrue(index.hasOpenLoan(4L));
+        assertFalse(index.isKnownUnavailable(4L));
+    }
+
+    @Test
+    void unknownDevicesAreNotRejected() {
+        assertFalse(index.isKnownUnavailable(99L));
+        assertFalse(index.isKnownUnavailable(Long.MAX_VALUE));
+        assertNull(index.statusOf(99L));
+    }
+}
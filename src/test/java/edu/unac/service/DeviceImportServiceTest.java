@@ -0,0 +1,170 @@
+package edu.unac.service;
+
+import edu.unac.domain.Device;
+import edu.unac.dto.BatchItemResult;
+import edu.unac.dto.BatchResult;
+import edu.unac.dto.DeviceImportStatus;
+import edu.unac.dto.DeviceImportStatus.State;
+import edu.unac.dto.ImportRowError;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DeviceImportServiceTest {
+    @TempDir
+    Path directory;
+
+    private DeviceService deviceService;
+    private DeviceImportService importService;
+    private final List<Device> registered = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        deviceService = mock(DeviceService.class);
+        importService = new DeviceImportService(deviceService, 2, 10, Duration.ofHours(1));
+        when(deviceService.registerDevices(anyList())).thenAnswer(this::register);
+    }
+
+    // Mirrors the registration name rule so failures come back per index like the real service
+    private BatchResult register(InvocationOnMock invocation) {
+        List<Device> batch = invocation.getArgument(0);
+        List<BatchItemResult> items = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Device device = batch.get(i);
+            if (device.getName() == null || device.getName().length() < 3) {
+                items.add(BatchItemResult.failed(i, "Device name must be at least 3 characters long"));
+            } else {
+                registered.add(device);
+                items.add(BatchItemResult.created(i, (long) registered.size()));
+            }
+        }
+        int created = (int) items.stream().filter(item -> item.id() != null).count();
+        return new BatchResult(created, batch.size() - created, items);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.destroy();
+    }
+
+    private DeviceImportStatus importAndWait(String csv) throws Exception {
+        Path file = Files.writeString(directory.resolve("devices.csv"), csv);
+        DeviceImportStatus status = importService.start(file, "devices.csv");
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (status.state() == State.QUEUED || status.state() == State.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "import did not finish");
+            Thread.sleep(10);
+            status = importService.getStatus(status.jobId()).orElseThrow();
+        }
+        assertFalse(Files.exists(file));
+        return status;
+    }
+
+    @Test
+    void importsInBatchesAndReportsRowErrorsByLine() throws Exception {
+        DeviceImportStatus status = importAndWait("""
+                Location,Name,Type
+                Room 1,Laptop,Electronics
+                Room 2,AB,Electronics
+
+                "Hall, east","Projector \"\"HD\"\"",Multimedia
+                Room 3,"Broken,Office
+                ,Tablet,
+                """);
+
+        assertEquals(State.COMPLETED, status.state());
+        assertEquals(5, status.rowsRead());
+        assertEquals(3, status.imported());
+        assertEquals(2, status.failed());
+        assertEquals(List.of(
+                new ImportRowError(3, "Device name must be at least 3 characters long"),
+                new ImportRowError(6, "Unterminated quoted field")), status.errors());
+        assertEquals(status.bytesTotal(), status.bytesRead());
+        verify(deviceService, times(2)).registerDevices(anyList());
+
+        assertEquals("Projector \"HD\"", registered.get(1).getName());
+        assertEquals("Hall, east", registered.get(1).getLocation());
+        assertNull(registered.get(2).getLocation());
+        assertNull(registered.get(2).getType());
+    }
+
+    @Test
+    void quotedFieldsMaySpanLines() throws Exception {
+        DeviceImportStatus status = importAndWait("""
+                name,location
+                "Laptop
+                14 inch",Room 1
+                "Projector \"\"HD\"\"",Room 2
+                Scanner,"Stray quote
+                Tablet,Room 3
+                """);
+
+        assertEquals(State.COMPLETED, status.state());
+        assertEquals(3, status.imported());
+        assertEquals(List.of(new ImportRowError(5, "Unterminated quoted field")), status.errors());
+        assertEquals(List.of("Laptop\n14 inch", "Projector \"HD\"", "Tablet"),
+                registered.stream().map(Device::getName).toList());
+        assertEquals("Room 3", registered.get(2).getLocation());
+    }
+
+    @Test
+    void rejectsValuesLongerThanTheirColumnBeforeSendingTheBatch() throws Exception {
+        DeviceImportStatus status = importAndWait("name,type\nLaptop,Electronics\n"
+                + "Projector," + "x".repeat(DeviceImportService.MAX_COLUMN_LENGTH + 1) + "\nTablet,\n");
+
+        assertEquals(State.COMPLETED, status.state());
+        assertEquals(2, status.imported());
+        assertEquals(List.of(new ImportRowError(3, "type must be at most 255 characters")), status.errors());
+    }
+
+    @Test
+    void retriesRowByRowWhenTheDatabaseRejectsABatch() throws Exception {
+        when(deviceService.registerDevices(anyList())).thenAnswer(invocation -> {
+            List<Device> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(device -> "Broken".equals(device.getName()))) {
+                throw new DataIntegrityViolationException("batch failed",
+                        new SQLException("Check constraint violation"));
+            }
+            return register(invocation);
+        });
+
+        DeviceImportStatus status = importAndWait("name\nLaptop\nBroken\nProjector\nTablet\n");
+
+        assertEquals(State.COMPLETED, status.state());
+        assertEquals(3, status.imported());
+        assertEquals(List.of(new ImportRowError(3, "Rejected by the database: Check constraint violation")),
+                status.errors());
+        assertEquals(List.of("Laptop", "Projector", "Tablet"), registered.stream().map(Device::getName).toList());
+    }
+
+    @Test
+    void failsWithoutNameColumn() throws Exception {
+        DeviceImportStatus status = importAndWait("type,location\nLaptop,Room 1\n");
+
+        assertEquals(State.FAILED, status.state());
+        assertEquals("CSV header must contain a name column", status.error());
+        verify(deviceService, never()).registerDevices(anyList());
+    }
+
+    @Test
+    void parseLine() {
+        assertEquals(Arrays.asList("a", null, "c d", null), DeviceImportService.parseLine(" a ,, c d ,"));
+        assertEquals(List.of("x,y", " z "), DeviceImportService.parseLine("\"x,y\", \" z \""));
+        assertThrows(IllegalArgumentException.class, () -> DeviceImportService.parseLine("\"a\"b"));
+        assertNull(DeviceImportService.parseLine("a,\"b"));
+    }
+}
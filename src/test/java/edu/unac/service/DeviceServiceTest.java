@@ -2,11 +2,22 @@ package edu.unac.service;
 
 import edu.unac.domain.Device;
 import edu.unac.domain.DeviceStatus;
+import edu.unac.dto.BatchResult;
+import edu.unac.dto.DeviceFilter;
+import edu.unac.dto.DevicePage;
+import edu.unac.dto.DeviceStats;
+import edu.unac.dto.DeviceView;
+import edu.unac.dto.GroupCount;
+import edu.unac.dto.StatusCount;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.DeviceRegisteredEvent;
 import edu.unac.repository.DeviceRepository;
 import net.bytebuddy.implementation.bytecode.Division;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -17,12 +28,18 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class DeviceServiceTest {
     private DeviceRepository deviceRepository;
+    private DeviceCache deviceCache;
+    private ApplicationEventPublisher eventPublisher;
+    private AvailabilityIndex availabilityIndex;
     private DeviceService deviceService;
 
     @BeforeEach
     void setUp() {
         deviceRepository = mock(DeviceRepository.class);
-        deviceService = new DeviceService(deviceRepository);
+        deviceCache = new DeviceCache(100, Duration.ofMinutes(1));
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        availabilityIndex = mock(AvailabilityIndex.class);
+        deviceService = new DeviceService(deviceRepository, deviceCache, eventPublisher, availabilityIndex);
     }
 
     @Test
@@ -51,6 +68,9 @@ class DeviceServiceTest {
         assertEquals(DeviceStatus.AVAILABLE, result.getStatus());
         assertNotNull(result.getAddedDate());
         verify(deviceRepository).save(any(Device.class));
+        verify(eventPublisher).publishEvent(new DeviceRegisteredEvent(1L, result.getName(), result.getType(),
+                result.getLocation(), result.getAddedDate()));
+        verify(eventPublisher).publishEvent(new DeviceChangedEvent(1L, DeviceStatus.AVAILABLE, 0));
     }
 
     @Test
@@ -64,15 +84,102 @@ class DeviceServiceTest {
         verify(deviceRepository, never()).save(any());
     }
 
+    @Test
+    void registerDevices_reportsPerItemErrors() {
+        Device valid = new Device();
+        valid.setName("Laptop");
+        Device invalid = new Device();
+        invalid.setName("AB");
+
+        when(deviceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Device> toSave = invocation.getArgument(0);
+            toSave.forEach(d -> d.setId(10L));
+            return toSave;
+        });
+
+        BatchResult result = deviceService.registerDevices(List.of(valid, invalid));
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.failed());
+        assertEquals(10L, result.items().get(0).id());
+        assertEquals("Device name must be at least 3 characters long", result.items().get(1).error());
+        assertEquals(DeviceStatus.AVAILABLE, valid.getStatus());
+        verify(deviceRepository).saveAll(List.of(valid));
+    }
+
+    @Test
+    void registerDevices_emptyBatch() {
+        assertThrows(IllegalArgumentException.class, () -> deviceService.registerDevices(List.of()));
+        verify(deviceRepository, never()).saveAll(any());
+    }
+
     @Test
     void getAllDevices() {
-        List<Device> devices = Arrays.asList(new Device(), new Device());
-        when(deviceRepository.findAll()).thenReturn(devices);
+        List<DeviceView> devices = Arrays.asList(view(1L), view(2L));
+        when(deviceRepository.findAllViews()).thenReturn(devices);
 
-        List<Device> result = deviceService.getAllDevices();
+        List<DeviceView> result = deviceService.getAllDevices();
 
         assertEquals(2, result.size());
-        verify(deviceRepository).findAll();
+        verify(deviceRepository).findAllViews();
+        verify(deviceRepository, never()).findAll();
+    }
+
+    @Test
+    void getDevicesPage_hasNextCursor() {
+        when(deviceRepository.findViews(any(), eq(3))).thenReturn(List.of(view(1L), view(2L), view(3L)));
+
+        DevicePage page = deviceService.getDevicesPage(null, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(2L, page.nextCursor());
+    }
+
+    @Test
+    void getDevicesPage_lastPage() {
+        when(deviceRepository.findViews(any(), eq(3))).thenReturn(List.of(view(7L)));
+
+        DevicePage page = deviceService.getDevicesPage(5L, 2);
+
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getDevicesPage_invalidLimit() {
+        assertThrows(IllegalArgumentException.class, () ->
+                deviceService.getDevicesPage(null, DeviceService.MAX_PAGE_SIZE + 1));
+        verify(deviceRepository, never()).findViews(any(), anyInt());
+    }
+
+    @Test
+    void getDevicesPage_emptyNamePrefix() {
+        DeviceFilter filter = new DeviceFilter(null, null, null, "");
+
+        assertThrows(IllegalArgumentException.class, () -> deviceService.getDevicesPage(filter, null, 10));
+        verify(deviceRepository, never()).findViews(any(), anyInt());
+    }
+
+    private static DeviceView view(Long id) {
+        return new DeviceView(id, "Device " + id, null, null, DeviceStatus.AVAILABLE, 0L);
+    }
+
+    @Test
+    void getDeviceStats() {
+        when(deviceRepository.countGroupedByStatus()).thenReturn(List.of(
+                new StatusCount(DeviceStatus.AVAILABLE, 4L), new StatusCount(DeviceStatus.LOANED, 1L)));
+        when(deviceRepository.countGroupedByType()).thenReturn(List.of(
+                new GroupCount("Laptop", 3L), new GroupCount(null, 2L)));
+        when(deviceRepository.countGroupedByLocation()).thenReturn(List.of(new GroupCount("Room 1", 5L)));
+
+        DeviceStats stats = deviceService.getDeviceStats();
+
+        assertEquals(5, stats.total());
+        assertEquals(4L, stats.byStatus().get(DeviceStatus.AVAILABLE));
+        assertEquals(0L, stats.byStatus().get(DeviceStatus.MAINTENANCE));
+        assertEquals(2L, stats.byType().get(DeviceService.UNSPECIFIED));
+        assertEquals(5L, stats.byLocation().get("Room 1"));
+        verify(deviceRepository, never()).findAll();
     }
 
     @Test
@@ -87,24 +194,65 @@ class DeviceServiceTest {
         assertEquals(1L, result.get().getId());
     }
 
+    @Test
+    void getDeviceById_servedFromCache() {
+        Device device = new Device();
+        device.setId(1L);
+        device.setName("Laptop");
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+
+        deviceService.getDeviceById(1L);
+        Optional<Device> result = deviceService.getDeviceById(1L);
+
+        assertEquals("Laptop", result.orElseThrow().getName());
+        verify(deviceRepository, times(1)).findById(1L);
+        assertEquals(1, deviceService.getCacheStats().hits());
+        assertEquals(1, deviceService.getCacheStats().misses());
+    }
+
+    @Test
+    void getDeviceById_reloadedAfterInvalidation() {
+        Device device = new Device();
+        device.setId(1L);
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+
+        deviceService.getDeviceById(1L);
+        deviceCache.onDeviceChanged(new DeviceChangedEvent(1L, DeviceStatus.MAINTENANCE, 1));
+        deviceService.getDeviceById(1L);
+
+        verify(deviceRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getDeviceById_missingDeviceNotCached() {
+        when(deviceRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertTrue(deviceService.getDeviceById(9L).isEmpty());
+        assertTrue(deviceService.getDeviceById(9L).isEmpty());
+
+        verify(deviceRepository, times(2)).findById(9L);
+    }
+
     @Test
     void updateDeviceStatus() {
         Device device = new Device();
         device.setId(1L);
-        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setStatus(DeviceStatus.MAINTENANCE);
+        device.setVersion(3);
 
+        when(deviceRepository.updateStatus(1L, DeviceStatus.MAINTENANCE)).thenReturn(1);
         when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
-        when(deviceRepository.save(any(Device.class))).thenReturn(device);
 
         Device updated = deviceService.updateDeviceStatus(1L, DeviceStatus.MAINTENANCE);
 
         assertEquals(DeviceStatus.MAINTENANCE, updated.getStatus());
-        verify(deviceRepository).save(device);
+        verify(deviceRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new DeviceChangedEvent(1L, DeviceStatus.MAINTENANCE, 3));
     }
 
     @Test
     void updateDeviceStatus_deviceNotFound() {
-        when(deviceRepository.findById(99L)).thenReturn(Optional.empty());
+        when(deviceRepository.updateStatus(99L, DeviceStatus.MAINTENANCE)).thenReturn(0);
 
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 deviceService.updateDeviceStatus(99L, DeviceStatus.MAINTENANCE));
@@ -128,6 +276,15 @@ class DeviceServiceTest {
         verify(deviceRepository, never()).deleteById(any());
     }
 
+    @Test
+    void deleteDevice_withOpenLoanInIndex() {
+        when(availabilityIndex.hasOpenLoan(1L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> deviceService.deleteDevice(1L));
+        verify(deviceRepository, never()).existsLoanByDeviceId(any());
+        verify(deviceRepository, never()).deleteById(any());
+    }
+
     @Test
     void deleteDevice() {
         when(deviceRepository.existsLoanByDeviceId(1L)).thenReturn(false);
@@ -135,5 +292,6 @@ class DeviceServiceTest {
         deviceService.deleteDevice(1L);
 
         verify(deviceRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(DeviceChangedEvent.deleted(1L));
     }
 }
\ No newline at end of file
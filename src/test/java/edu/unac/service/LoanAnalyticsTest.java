@@ -0,0 +1,122 @@
+package edu.unac.service;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.dto.LoanGroupAnalytics;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.DeviceRegisteredEvent;
+import edu.unac.event.LoanChangedEvent;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanHistoryRepository;
+import edu.unac.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LoanAnalyticsTest {
+    private DeviceRepository deviceRepository;
+    private LoanAnalytics analytics;
+
+    @BeforeEach
+    void setUp() {
+        deviceRepository = mock(DeviceRepository.class);
+        analytics = new LoanAnalytics(mock(LoanRepository.class), mock(LoanHistoryRepository.class),
+                deviceRepository, new DeviceCache(100, Duration.ofMinutes(1)), mock(TransactionTemplate.class));
+        register(1L, "Laptop", "Building A");
+        register(2L, "Laptop", "Building B");
+        register(3L, null, "Building B");
+        register(4L, "Laptop", "Building C");
+        register(5L, "Laptop", "Building C");
+    }
+
+    private void register(Long id, String type, String location) {
+        analytics.onDeviceRegistered(new DeviceRegisteredEvent(id, "Device " + id, type, location, 0L));
+    }
+
+    private static Device device(Long id, String type, String location) {
+        Device device = new Device();
+        device.setId(id);
+        device.setType(type);
+        device.setLocation(location);
+        return device;
+    }
+
+    @Test
+    void aggregatesLoansPerTypeAndLocation() {
+        analytics.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", false, 1_000L));
+        analytics.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", true, 4_000L));
+        analytics.onLoanChanged(new LoanChangedEvent(11L, 2L, "Bob", false, 2_000L));
+        analytics.onLoanChanged(new LoanChangedEvent(11L, 2L, "Bob", true, 3_000L));
+        analytics.onLoanChanged(new LoanChangedEvent(12L, 2L, "Carol", false, 5_000L));
+        analytics.onLoanChanged(new LoanChangedEvent(13L, 3L, "Dave", false, 5_000L));
+
+        assertEquals(List.of(
+                new LoanGroupAnalytics("Laptop", 4, 3, 1, 2, 2_000.0, 3_000, 0.25),
+                new LoanGroupAnalytics(DeviceService.UNSPECIFIED, 1, 1, 1, 0, 0, 0, 1.0)),
+                analytics.byDimension(LoanAnalytics.Dimension.TYPE));
+        assertEquals(List.of(
+                new LoanGroupAnalytics("Building A", 1, 1, 0, 1, 3_000.0, 3_000, 0),
+                new LoanGroupAnalytics("Building B", 2, 3, 2, 1, 1_000.0, 1_000, 1.0)),
+                analytics.byDimension(LoanAnalytics.Dimension.LOCATION));
+        verify(deviceRepository, never()).findById(any());
+    }
+
+    @Test
+    void deviceCountsFollowRegistrationsAndDeletions() {
+        analytics.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", false, 1_000L));
+        analytics.onDeviceChanged(new DeviceChangedEvent(4L, DeviceStatus.MAINTENANCE, 1));
+        analytics.onDeviceChanged(DeviceChangedEvent.deleted(5L));
+        analytics.onDeviceChanged(DeviceChangedEvent.deleted(5L));
+        register(6L, "Laptop", "Building A");
+        register(6L, "Laptop", "Building A");
+
+        assertEquals(List.of(new LoanGroupAnalytics("Laptop", 4, 1, 1, 0, 0, 0, 0.25)),
+                analytics.byDimension(LoanAnalytics.Dimension.TYPE));
+    }
+
+    @Test
+    void checkoutOfUnregisteredDeviceIsLookedUp() {
+        when(deviceRepository.findById(7L)).thenReturn(Optional.of(device(7L, "Tablet", "Building A")));
+
+        analytics.onLoanChanged(new LoanChangedEvent(10L, 7L, "Alice", false, 1_000L));
+
+        assertEquals(List.of(new LoanGroupAnalytics("Tablet", 0, 1, 1, 0, 0, 0, 0)),
+                analytics.byDimension(LoanAnalytics.Dimension.TYPE));
+    }
+
+    @Test
+    void returnDeliveredBeforeCheckoutIsApplied() {
+        analytics.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", true, 4_000L));
+        analytics.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", false, 1_000L));
+
+        LoanGroupAnalytics laptops = analytics.byDimension(LoanAnalytics.Dimension.TYPE).get(0);
+        assertEquals(1, laptops.loans());
+        assertEquals(0, laptops.out());
+        assertEquals(3_000, laptops.maxDuration());
+        assertEquals(0, analytics.pendingEarlyReturns());
+    }
+
+    @Test
+    void earlyReturnsWithoutCheckoutAreDropped() {
+        analytics.onLoanChanged(new LoanChangedEvent(10L, 1L, "Alice", true, 1_000L));
+        analytics.onLoanChanged(new LoanChangedEvent(11L, 1L, "Bob", true, 2_000L));
+        assertEquals(2, analytics.pendingEarlyReturns());
+
+        analytics.onLoanChanged(new LoanChangedEvent(12L, 1L, "Carol", true,
+                1_500L + LoanAnalytics.EARLY_RETURN_TTL));
+        assertEquals(2, analytics.pendingEarlyReturns());
+
+        for (long loanId = 100; loanId < 100 + LoanAnalytics.EARLY_RETURN_LIMIT; loanId++) {
+            analytics.onLoanChanged(new LoanChangedEvent(loanId, 1L, "Dave", true,
+                    3_000L + LoanAnalytics.EARLY_RETURN_TTL));
+        }
+        assertEquals(LoanAnalytics.EARLY_RETURN_LIMIT, analytics.pendingEarlyReturns());
+    }
+}
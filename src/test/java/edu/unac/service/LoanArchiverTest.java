@@ -0,0 +1,87 @@
+package edu.unac.service;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.domain.Loan;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanHistoryRepository;
+import edu.unac.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "inventory.loan-archive.batch-size=2")
+class LoanArchiverTest {
+
+    @Autowired
+    private LoanArchiver loanArchiver;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanHistoryRepository loanHistoryRepository;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        // The in-memory database is shared with the other Spring tests, which do not know about history
+        loanRepository.deleteAll();
+        loanHistoryRepository.deleteAll();
+        deviceRepository.deleteAll();
+    }
+
+    @Test
+    void movesOldReturnedLoansInChunks() {
+        Device device = new Device();
+        device.setName("Laptop");
+        device.setStatus(DeviceStatus.LOANED);
+        device = deviceRepository.save(device);
+
+        Long[] oldIds = new Long[5];
+        for (int i = 0; i < oldIds.length; i++) {
+            oldIds[i] = loanRepository.save(loan(device.getId(), true, 1_000L + i)).getId();
+        }
+        Long recentId = loanRepository.save(loan(device.getId(), true, 50_000L)).getId();
+        Long openId = loanRepository.save(loan(device.getId(), false, 0L)).getId();
+
+        assertEquals(5, loanArchiver.archiveReturnedBefore(10_000L));
+
+        assertEquals(List.of(recentId, openId),
+                loanRepository.findAll().stream().map(Loan::getId).sorted().toList());
+        assertEquals(5, loanHistoryRepository.count());
+
+        Loan archived = loanService.getLoanById(oldIds[0]).orElseThrow();
+        assertTrue(archived.isReturned());
+        assertEquals(1_000L, archived.getEndDate());
+        assertEquals("Alice", archived.getBorrowedBy());
+        assertEquals(7, loanService.getLoansByDeviceId(device.getId()).size());
+        assertEquals(7, loanService.getLoanStats().total());
+        assertEquals(1, loanService.getLoanStats().open());
+
+        assertThrows(IllegalStateException.class, () -> loanService.markAsReturned(oldIds[1]));
+        assertEquals(0, loanArchiver.archiveReturnedBefore(10_000L));
+    }
+
+    private static Loan loan(Long deviceId, boolean returned, long endDate) {
+        Loan loan = new Loan();
+        loan.setDeviceId(deviceId);
+        loan.setBorrowedBy("Alice");
+        loan.setReturned(returned);
+        loan.setStartDate(endDate - 1);
+        loan.setEndDate(endDate);
+        return loan;
+    }
+}
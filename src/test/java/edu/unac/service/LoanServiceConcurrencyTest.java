@@ -0,0 +1,137 @@
+package edu.unac.service;
+
+import edu.unac.domain.Device;
+import edu.unac.domain.DeviceStatus;
+import edu.unac.domain.Loan;
+import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LoanServiceConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @BeforeEach
+    void setup() {
+        loanRepository.deleteAll();
+        deviceRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutOfSameDeviceCreatesSingleLoan() throws Exception {
+        Device device = availableDevice("Camera");
+        AtomicInteger unavailable = new AtomicInteger();
+
+        List<Boolean> outcomes = runConcurrently(THREADS * 4, i -> {
+            Loan loan = new Loan();
+            loan.setDeviceId(device.getId());
+            loan.setBorrowedBy("User " + i);
+            try {
+                loanService.registerLoan(loan);
+                return true;
+            } catch (IllegalStateException e) {
+                unavailable.incrementAndGet();
+                return false;
+            }
+        });
+
+        assertEquals(1, outcomes.stream().filter(Boolean::booleanValue).count());
+        assertEquals(THREADS * 4 - 1, unavailable.get());
+        assertEquals(1, loanRepository.findByDeviceId(device.getId()).size());
+        assertEquals(DeviceStatus.LOANED, deviceRepository.findById(device.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void concurrentCheckoutAndReturnKeepsOneOpenLoanPerDevice() throws Exception {
+        Device device = availableDevice("Tablet");
+
+        // Every thread loops checkout/return on the same device; a double loan would show up as
+        // a device whose loan history contains two overlapping open loans.
+        runConcurrently(THREADS, i -> {
+            for (int round = 0; round < 25; round++) {
+                Loan loan = new Loan();
+                loan.setDeviceId(device.getId());
+                loan.setBorrowedBy("User " + i);
+                try {
+                    Loan created = loanService.registerLoan(loan);
+                    loanService.markAsReturned(created.getId());
+                } catch (IllegalStateException e) {
+                    // Someone else holds the device right now
+                }
+            }
+            return true;
+        });
+
+        List<Loan> history = new ArrayList<>(loanRepository.findByDeviceId(device.getId()));
+        history.sort(Comparator.comparing(Loan::getId));
+        assertFalse(history.isEmpty());
+        assertTrue(history.stream().allMatch(Loan::isReturned));
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.get(i).getStartDate() >= history.get(i - 1).getEndDate(),
+                    "Loan " + history.get(i).getId() + " started before the previous loan was returned");
+        }
+        assertEquals(DeviceStatus.AVAILABLE, deviceRepository.findById(device.getId()).orElseThrow().getStatus());
+    }
+
+    private Device availableDevice(String name) {
+        Device device = new Device();
+        device.setName(name);
+        device.setStatus(DeviceStatus.AVAILABLE);
+        device.setAddedDate(System.currentTimeMillis());
+        return deviceRepository.save(device);
+    }
+
+    private interface Task<T> {
+        T run(int threadIndex) throws Exception;
+    }
+
+    private <T> List<T> runConcurrently(int threads, Task<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, THREADS));
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                Callable<T> callable = () -> {
+                    startGate.await();
+                    return task.run(index);
+                };
+                futures.add(executor.submit(callable));
+            }
+            startGate.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
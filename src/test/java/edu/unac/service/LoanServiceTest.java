@@ -1,16 +1,25 @@
 package edu.unac.service;
 
-import edu.unac.domain.Device;
 import edu.unac.domain.DeviceStatus;
 import edu.unac.domain.Loan;
+import edu.unac.domain.LoanHistory;
+import edu.unac.dto.LoanView;
+import edu.unac.dto.ReturnItemResult;
+import edu.unac.dto.ReturnItemResult.Outcome;
+import edu.unac.dto.ReturnResult;
+import edu.unac.event.DeviceChangedEvent;
+import edu.unac.event.LoanChangedEvent;
 import edu.unac.repository.DeviceRepository;
+import edu.unac.repository.LoanHistoryRepository;
 import edu.unac.repository.LoanRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 
@@ -19,31 +28,40 @@ import static org.junit.jupiter.api.Assertions.*;
 class LoanServiceTest {
 
         private LoanRepository loanRepository;
+        private LoanHistoryRepository loanHistoryRepository;
         private DeviceRepository deviceRepository;
+        private ApplicationEventPublisher eventPublisher;
+        private AvailabilityIndex availabilityIndex;
         private LoanService loanService;
 
         @BeforeEach
         void setUp() {
             loanRepository = mock(LoanRepository.class);
+            loanHistoryRepository = mock(LoanHistoryRepository.class);
             deviceRepository = mock(DeviceRepository.class);
-            loanService = new LoanService(loanRepository, deviceRepository);
+            eventPublisher = mock(ApplicationEventPublisher.class);
+            availabilityIndex = mock(AvailabilityIndex.class);
+            loanService = new LoanService(loanRepository, loanHistoryRepository, deviceRepository, eventPublisher,
+                    availabilityIndex);
         }
 
 
     @Test
     void registerLoan() {
-        Device device = new Device();
-        device.setId(1L);
-        device.setStatus(DeviceStatus.AVAILABLE);
-
         Loan loan = new Loan();
         loan.setDeviceId(1L);
 
-        when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
-        when(deviceRepository.save(any())).thenReturn(device);
-        loanService.registerLoan(loan);
-
-        assertEquals(DeviceStatus.LOANED, device.getStatus());
+        when(deviceRepository.compareAndSetStatus(1L, DeviceStatus.AVAILABLE, DeviceStatus.LOANED)).thenReturn(1);
+        when(deviceRepository.findVersionById(1L)).thenReturn(5L);
+        when(loanRepository.save(loan)).thenReturn(loan);
+        Loan result = loanService.registerLoan(loan);
+
+        assertFalse(result.isReturned());
+        assertTrue(result.getStartDate() > 0);
+        verify(deviceRepository, never()).findById(any());
+        verify(loanRepository).save(loan);
+        verify(eventPublisher).publishEvent(new DeviceChangedEvent(1L, DeviceStatus.LOANED, 5));
+        verify(eventPublisher).publishEvent(new LoanChangedEvent(null, 1L, null, false, result.getStartDate()));
     }
 
         @Test
@@ -51,23 +69,35 @@ class LoanServiceTest {
             Loan loan = new Loan();
             loan.setDeviceId(111L);
 
-            when(deviceRepository.findById(111L)).thenReturn(Optional.empty());
+            when(deviceRepository.existsById(111L)).thenReturn(false);
 
             assertThrows(RuntimeException.class, () -> loanService.registerLoan(loan));
+            verify(loanRepository, never()).save(any());
         }
 
         @Test
         void deviceNotAvailable() {
-            Device device = new Device();
-            device.setId(3504L);
-            device.setStatus(DeviceStatus.LOANED);
-
-            when(deviceRepository.findById(3504L)).thenReturn(Optional.of(device));
+            when(deviceRepository.compareAndSetStatus(3504L, DeviceStatus.AVAILABLE, DeviceStatus.LOANED)).thenReturn(0);
+            when(deviceRepository.existsById(3504L)).thenReturn(true);
 
             Loan loan = new Loan();
             loan.setDeviceId(3504L);
 
             assertThrows(IllegalStateException.class, () -> loanService.registerLoan(loan));
+            verify(loanRepository, never()).save(any());
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        void deviceKnownUnavailable() {
+            when(availabilityIndex.isKnownUnavailable(3505L)).thenReturn(true);
+
+            Loan loan = new Loan();
+            loan.setDeviceId(3505L);
+
+            assertThrows(IllegalStateException.class, () -> loanService.registerLoan(loan));
+            verify(deviceRepository, never()).compareAndSetStatus(any(), any(), any());
+            verify(loanRepository, never()).save(any());
         }
 
         @Test
@@ -75,18 +105,32 @@ class LoanServiceTest {
             Loan loan = new Loan();
             loan.setId(4L);
             loan.setReturned(false);
-
-            Device device = new Device();
-            device.setId(3030L);
-            device.setStatus(DeviceStatus.LOANED);
             loan.setDeviceId(3030L);
 
             when(loanRepository.findById(4L)).thenReturn(Optional.of(loan));
-            when(deviceRepository.findById(3030L)).thenReturn(Optional.of(device));
+            when(loanRepository.markReturnedIfOpen(eq(4L), anyLong())).thenReturn(1);
+            when(deviceRepository.updateStatus(3030L, DeviceStatus.AVAILABLE)).thenReturn(1);
+            when(deviceRepository.findVersionById(3030L)).thenReturn(6L);
             loanService.markAsReturned(4L);
 
             assertTrue(loan.isReturned());
-            assertEquals(DeviceStatus.AVAILABLE, device.getStatus());
+            assertTrue(loan.getEndDate() > 0);
+            verify(deviceRepository).updateStatus(3030L, DeviceStatus.AVAILABLE);
+            verify(eventPublisher).publishEvent(new DeviceChangedEvent(3030L, DeviceStatus.AVAILABLE, 6));
+            verify(eventPublisher).publishEvent(new LoanChangedEvent(4L, 3030L, null, true, loan.getEndDate()));
+        }
+
+        @Test
+        void markAsReturned_concurrentlyReturned() {
+            Loan loan = new Loan();
+            loan.setId(6L);
+            loan.setDeviceId(3030L);
+
+            when(loanRepository.findById(6L)).thenReturn(Optional.of(loan));
+            when(loanRepository.markReturnedIfOpen(eq(6L), anyLong())).thenReturn(0);
+
+            assertThrows(IllegalStateException.class, () -> loanService.markAsReturned(6L));
+            verify(deviceRepository, never()).updateStatus(any(), any());
         }
 
         @Test
@@ -96,13 +140,24 @@ class LoanServiceTest {
             assertEquals("Loan not found", u.getMessage());
 
         }
+
+        @Test
+        void markAsReturned_loanArchived() {
+            when(loanRepository.findById(23L)).thenReturn(Optional.empty());
+            when(loanHistoryRepository.existsById(23L)).thenReturn(true);
+
+            assertThrows(IllegalStateException.class, () -> loanService.markAsReturned(23L));
+            verify(loanRepository, never()).markReturnedIfOpen(anyLong(), anyLong());
+        }
         @Test
         void markAsReturned_deviceNotFound() {
             Loan loan = new Loan();
             loan.setId(100L);
+            loan.setDeviceId(1L);
 
             when(loanRepository.findById(100L)).thenReturn(Optional.of(loan));
-            when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+            when(loanRepository.markReturnedIfOpen(eq(100L), anyLong())).thenReturn(1);
+            when(deviceRepository.updateStatus(1L, DeviceStatus.AVAILABLE)).thenReturn(0);
             IllegalArgumentException u= assertThrows(IllegalArgumentException.class, () -> loanService.markAsReturned(100L));
             assertEquals("Device not found", u.getMessage());
         }
@@ -119,11 +174,59 @@ class LoanServiceTest {
 
         }
 
+        @Test
+        void returnLoans_reportsEachId() {
+            Loan open = new Loan();
+            open.setId(1L);
+            open.setDeviceId(10L);
+            Loan returned = new Loan();
+            returned.setId(2L);
+            returned.setDeviceId(20L);
+            returned.setReturned(true);
+
+            when(loanRepository.findAllByIdForUpdate(Set.of(1L, 2L, 3L))).thenReturn(List.of(open, returned));
+            when(loanRepository.markAllReturnedIfOpen(eq(Set.of(1L)), anyLong())).thenReturn(1);
+            when(deviceRepository.findIdAndVersionByIdIn(Set.of(10L))).thenReturn(List.<Object[]>of(new Object[]{10L, 2L}));
+
+            ReturnResult result = loanService.returnLoans(List.of(1L, 2L, 3L, 1L));
+
+            assertEquals(1, result.returned());
+            assertEquals(3, result.failed());
+            assertEquals(List.of(
+                    new ReturnItemResult(1L, Outcome.RETURNED),
+                    new ReturnItemResult(2L, Outcome.ALREADY_RETURNED),
+                    new ReturnItemResult(3L, Outcome.NOT_FOUND),
+                    new ReturnItemResult(1L, Outcome.ALREADY_RETURNED)), result.items());
+            verify(deviceRepository).updateStatusByIdIn(Set.of(10L), DeviceStatus.AVAILABLE);
+            verify(loanRepository, never()).save(any());
+            verify(eventPublisher).publishEvent(new DeviceChangedEvent(10L, DeviceStatus.AVAILABLE, 2));
+            verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof LoanChangedEvent changed
+                    && changed.loanId() == 1L && changed.deviceId() == 10L && changed.returned()));
+        }
+
+        @Test
+        void returnLoans_nothingToReturn() {
+            when(loanRepository.findAllByIdForUpdate(Set.of(9L))).thenReturn(List.of());
+
+            ReturnResult result = loanService.returnLoans(List.of(9L));
+
+            assertEquals(0, result.returned());
+            verify(loanRepository, never()).markAllReturnedIfOpen(anyCollection(), anyLong());
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        void returnLoans_emptyBatch() {
+            assertThrows(IllegalArgumentException.class, () -> loanService.returnLoans(List.of()));
+            verify(loanRepository, never()).findAllByIdForUpdate(any());
+        }
+
         @Test
         void getAllLoans_returnsList() {
-            List<Loan> list = Arrays.asList(new Loan(), new Loan());
-            when(loanRepository.findAll()).thenReturn(list);
-            assertEquals(2, loanService.getAllLoans().size());
+            List<LoanView> list = Arrays.asList(view(1L, false), view(2L, true));
+            when(loanRepository.findAllViews()).thenReturn(list);
+            assertEquals(list, loanService.getAllLoans());
+            verify(loanRepository, never()).findAll();
         }
 
         @Test
@@ -137,11 +240,36 @@ class LoanServiceTest {
 
         @Test
         void getLoansByDeviceId() {
-            Loan loan = new Loan();
-            Loan loan2 = new Loan();
-            List<Loan> loans = List.of(loan, loan2);
-            when(loanRepository.findByDeviceId(1211L)).thenReturn(loans);
-            assertEquals(2, loanService.getLoansByDeviceId(1211L).size());
+            List<LoanView> loans = List.of(view(1L, true), view(2L, false));
+            when(loanRepository.findViewsByDeviceId(1211L)).thenReturn(loans);
+            assertEquals(loans, loanService.getLoansByDeviceId(1211L));
+        }
+
+        @Test
+        void getLoanById_archived() {
+            when(loanRepository.findById(8L)).thenReturn(Optional.empty());
+            when(loanHistoryRepository.findById(8L)).thenReturn(Optional.of(
+                    new LoanHistory(8L, 1211L, "Alice", 10L, 20L, 30L)));
+
+            Loan loan = loanService.getLoanById(8L).orElseThrow();
+
+            assertTrue(loan.isReturned());
+            assertEquals(20L, loan.getEndDate());
+        }
+
+        @Test
+        void getLoansByDeviceId_includesArchived() {
+            LoanView active = view(9L, false);
+            when(loanRepository.findViewsByDeviceId(1211L)).thenReturn(List.of(active));
+            when(loanHistoryRepository.findViewsByDeviceId(1211L)).thenReturn(List.of(view(3L, true), view(9L, true)));
+
+            List<LoanView> loans = loanService.getLoansByDeviceId(1211L);
+
+            assertEquals(List.of(3L, 9L), loans.stream().map(LoanView::id).toList());
+            assertSame(active, loans.get(1));
         }
-    }
 
+        private static LoanView view(Long id, boolean returned) {
+            return new LoanView(id, 1211L, "Alice", 10L, returned ? 20L : 0L, returned);
+        }
+    }
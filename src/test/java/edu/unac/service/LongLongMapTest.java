@@ -0,0 +1,57 @@
+package edu.unac.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongMapTest {
+
+    @Test
+    void putGetAndRemove() {
+        LongLongMap map = new LongLongMap();
+        map.put(7L, 70L);
+        map.put(-3L, 30L);
+        map.put(7L, 71L);
+
+        assertEquals(2, map.size());
+        assertEquals(71L, map.get(7L, -1L));
+        assertEquals(30L, map.get(-3L, -1L));
+        assertEquals(-1L, map.get(8L, -1L));
+        assertTrue(map.remove(7L));
+        assertFalse(map.remove(7L));
+        assertFalse(map.containsKey(7L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void reservedKeyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LongLongMap().put(Long.MIN_VALUE, 1L));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // A small key space forces collisions, long probe chains and backward shifts
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                long value = random.nextLong();
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 5_000; key++) {
+            assertEquals(expected.getOrDefault(key, Long.MIN_VALUE), map.get(key, Long.MIN_VALUE));
+        }
+    }
+}